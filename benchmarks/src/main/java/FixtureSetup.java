@@ -0,0 +1,112 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Setup shared by the fixture classes, so they only hold the code they
+ * measure: turning the string arguments of the benchmarks into values, seeding
+ * randomness and reading the puzzle templates shipped with the game. The
+ * template folder defaults to the one in the game's resources and can be
+ * changed with the "puzzle.templates" system property.
+ */
+public class FixtureSetup {
+
+    // Every fixture is seeded from this, so each run measures the same work.
+    private static final long SEED = 42;
+
+    private FixtureSetup() {}
+
+    /**
+     * @return A source of randomness, seeded the same way on every run.
+     */
+    public static SplittableRandom random() {
+        return random(0);
+    }
+
+    /**
+     * @param stream The number of the stream, for fixtures which need several independent ones.
+     * @return A source of randomness, seeded the same way on every run.
+     */
+    public static SplittableRandom random(int stream) {
+        return new SplittableRandom(SEED + stream);
+    }
+
+    /**
+     * @param name The name of a difficulty, e.g. "HARD".
+     * @return The difficulty.
+     * @throws IllegalArgumentException If there is no such difficulty.
+     */
+    public static RealMain.Difficulty difficulty(String name) {
+        try {
+            return RealMain.Difficulty.valueOf(name);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown difficulty: " + name);
+        }
+    }
+
+    /**
+     * Picks one of a fixed set of options given by a benchmark parameter.
+     *
+     * @param parameter The name of the parameter.
+     * @param value The value of the parameter.
+     * @param options The allowed values.
+     * @return The index of the value in the options.
+     * @throws IllegalArgumentException If the value is not one of the options.
+     */
+    public static int option(String parameter, String value, String... options) {
+        for (int i = 0; i < options.length; i++) {
+            if (options[i].equals(value)) return i;
+        }
+        throw new IllegalArgumentException("Unknown " + parameter + ": " + value);
+    }
+
+    /**
+     * @return The folder containing the "easy" and "hard" template folders.
+     */
+    public static File templateFolder() {
+        return new File(System.getProperty("puzzle.templates", ".." + File.separator + "src" + File.separator + "main" + File.separator + "resources" + File.separator + RealMain.PUZZLE_FOLDER));
+    }
+
+    /**
+     * Reads every template for the given difficulty.
+     *
+     * @param difficulty The name of the difficulty, e.g. "HARD".
+     * @return The templates.
+     * @throws IOException If there are no templates for the difficulty.
+     */
+    public static PuzzleTemplate[] templates(String difficulty) throws IOException {
+        List<PuzzleTemplate> templates = PuzzleTemplateRegistry.load(templateFolder()).getTemplates(difficulty(difficulty));
+        if (templates.isEmpty()) throw new IOException("No templates found in " + templateFolder().getAbsolutePath());
+        return templates.toArray(new PuzzleTemplate[0]);
+    }
+
+    /**
+     * @param path The path of a template file within the template folder, e.g. "hard/puzzle1.txt".
+     * @return The template file.
+     */
+    public static File templateFile(String path) {
+        return new File(templateFolder(), path);
+    }
+
+    /**
+     * Reads a single template.
+     *
+     * @param path The path of the template file within the template folder, e.g. "hard/puzzle1.txt".
+     * @return The template.
+     * @throws IOException If the template could not be read.
+     */
+    public static PuzzleTemplate template(String path) throws IOException {
+        return PuzzleTemplate.load(templateFile(path));
+    }
+
+    /**
+     * @param path The path of a template file within the template folder, e.g. "hard/puzzle1.txt".
+     * @return The difficulty of the template, given by the folder it is in.
+     */
+    public static RealMain.Difficulty difficultyOf(String path) {
+        return difficulty(new File(path).getParentFile().getName().toUpperCase());
+    }
+
+}
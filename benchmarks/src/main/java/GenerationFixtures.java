@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Fixtures for the puzzle generation benchmarks.
+ */
+public class GenerationFixtures {
+
+    // The number of filled out grids to create questions for, a power of 2.
+    private static final int GRID_COUNT = 256;
+
+    private GenerationFixtures() {}
+
+    /**
+     * Returns a supplier which generates a whole puzzle from a randomly picked
+     * template on every call.
+     *
+     * @param difficulty The name of the difficulty, e.g. "HARD".
+     * @return The supplier.
+     * @throws IOException If the templates could not be read.
+     */
+    public static Supplier<CrossNumberPuzzle> generate(String difficulty) throws IOException {
+        RealMain.Difficulty diff = FixtureSetup.difficulty(difficulty);
+        PuzzleTemplate[] templates = FixtureSetup.templates(difficulty);
+        SplittableRandom rand = FixtureSetup.random();
+        return () -> CrossNumberPuzzleGenerator.generate(diff, templates[rand.nextInt(templates.length)], rand);
+    }
+
+    /**
+     * Returns a supplier which generates a whole puzzle from the given template
+     * on every call.
+     *
+     * @param template The path of the template file, e.g. "hard/puzzle1.txt".
+     * @return The supplier.
+     * @throws IOException If the template could not be read.
+     */
+    public static Supplier<CrossNumberPuzzle> generateFrom(String template) throws IOException {
+        RealMain.Difficulty difficulty = FixtureSetup.difficultyOf(template);
+        PuzzleTemplate puzzleTemplate = FixtureSetup.template(template);
+        SplittableRandom rand = FixtureSetup.random();
+        return () -> CrossNumberPuzzleGenerator.generate(difficulty, puzzleTemplate, rand);
+    }
+
+    /**
+     * Returns a supplier which fills the given template with random digits on
+     * every call, the first stage of generating a puzzle.
+     *
+     * @param template The path of the template file, e.g. "hard/puzzle1.txt".
+     * @return The supplier.
+     * @throws IOException If the template could not be read.
+     */
+    public static Supplier<PuzzleGrid> fill(String template) throws IOException {
+        PuzzleSearch search = FixtureSetup.template(template).getSearch();
+        SplittableRandom rand = FixtureSetup.random();
+        return () -> search.fill((AnswerConstraint) null, rand);
+    }
+
+    /**
+     * Returns a supplier which creates the questions for one of a set of
+     * already filled out grids on every call, the second stage of generating a
+     * puzzle.
+     *
+     * @param template The path of the template file, e.g. "hard/puzzle1.txt".
+     * @return The supplier.
+     * @throws IOException If the template could not be read.
+     */
+    public static Supplier<CrossNumberPuzzleQuestion[]> createQuestions(String template) throws IOException {
+        RealMain.Difficulty difficulty = FixtureSetup.difficultyOf(template);
+        PuzzleTemplate puzzleTemplate = FixtureSetup.template(template);
+        SplittableRandom rand = FixtureSetup.random();
+        PuzzleGrid[] grids = new PuzzleGrid[GRID_COUNT];
+        for (int i = 0; i < GRID_COUNT; i++) grids[i] = puzzleTemplate.getSearch().fill((AnswerConstraint) null, rand);
+        int[] next = {0};
+        return () -> CrossNumberPuzzleGenerator.createQuestions(difficulty, puzzleTemplate, grids[next[0]++ & (GRID_COUNT - 1)], rand);
+    }
+
+}
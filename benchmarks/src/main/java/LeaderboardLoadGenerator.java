@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Simulates a classroom of games using the leaderboard server at once. Each
+ * client is a thread which submits scores for its own player and now and then
+ * asks for the top ten and its rank, all starting together. At the end the
+ * throughput, the latency of each kind of request and the number of failed
+ * requests by exception are printed.
+ * <p>
+ * Without a server address, a server is started on localhost for the run. This
+ * is not a JMH benchmark, so it is run by name:
+ * <pre>
+ * java -cp target/benchmarks.jar LeaderboardLoadGenerator [clients] [requests per client] [server address]
+ * </pre>
+ */
+public class LeaderboardLoadGenerator {
+
+    private static final int DEFAULT_CLIENTS = 500;
+    private static final int DEFAULT_REQUESTS = 100;
+    // One request in this many is a top ten query, and one in this many a rank query.
+    private static final int QUERY_EVERY = 4;
+    private static final int SUBMIT = 0;
+    private static final int TOP = 1;
+    private static final int RANK = 2;
+    // Each client's first request, which also opens its connection.
+    private static final int FIRST = 3;
+    private static final String[] REQUEST_NAMES = {"submit", "top", "rank", "first"};
+
+    private LeaderboardLoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REQUESTS;
+        // Keep a connection open per client rather than reconnecting for most requests.
+        System.setProperty("http.maxConnections", Integer.toString(clients + 16));
+
+        LeaderboardServer server = null;
+        String address;
+        if (args.length > 2) {
+            address = args[2];
+        }
+        else {
+            server = new LeaderboardServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            address = "http://localhost:" + server.getPort();
+        }
+        System.out.println("Running " + clients + " clients with " + requests + " requests each against " + address);
+
+        long[][][] latencies = new long[clients][REQUEST_NAMES.length][];
+        int[][] counts = new int[clients][REQUEST_NAMES.length];
+        Map<String, Integer> errors = new ConcurrentHashMap<>();
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            for (int type = 0; type < REQUEST_NAMES.length; type++) latencies[client][type] = new long[requests];
+            Thread thread = new Thread(() -> {
+                LeaderboardClient leaderboard = new LeaderboardClient(address);
+                SplittableRandom rand = new SplittableRandom(client);
+                String name = "Client" + client;
+                RealMain.Difficulty difficulty = RealMain.Difficulty.values()[client % RealMain.Difficulty.values().length];
+                ready.countDown();
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                for (int r = 0; r < requests; r++) {
+                    int type = r % QUERY_EVERY == QUERY_EVERY - 1 ? (r / QUERY_EVERY % 2 == 0 ? TOP : RANK) : SUBMIT;
+                    long begin = System.nanoTime();
+                    try {
+                        if (type == SUBMIT) {
+                            leaderboard.submit(new Highscore(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, name, rand.nextInt(100, 10_000)));
+                        }
+                        else if (type == TOP) {
+                            leaderboard.getTop(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, 10);
+                        }
+                        else {
+                            leaderboard.getRank(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, name);
+                        }
+                        int measured = r == 0 ? FIRST : type;
+                        latencies[client][measured][counts[client][measured]++] = System.nanoTime() - begin;
+                    }
+                    catch (IOException e) {
+                        errors.merge(e.getClass().getSimpleName(), 1, Integer::sum);
+                    }
+                }
+            }, "client-" + client);
+            threads.add(thread);
+            thread.start();
+        }
+
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        long elapsed = System.nanoTime() - begin;
+
+        int total = 0;
+        for (int type = 0; type < REQUEST_NAMES.length; type++) {
+            int count = 0;
+            for (int[] clientCounts : counts) count += clientCounts[type];
+            long[] all = new long[count];
+            int next = 0;
+            for (int client = 0; client < clients; client++) {
+                System.arraycopy(latencies[client][type], 0, all, next, counts[client][type]);
+                next += counts[client][type];
+            }
+            total += count;
+            printLatencies(REQUEST_NAMES[type], all);
+        }
+        System.out.printf("%,d requests in %.2f s: %,.0f requests/s, errors %s%n", total, elapsed / 1e9, total / (elapsed / 1e9), errors);
+
+        if (server != null) {
+            timeRanking(server.getRanking(RealMain.GameType.CROSS_NUMBER_PUZZLE, RealMain.Difficulty.EASY));
+            server.stop();
+        }
+    }
+
+    /**
+     * Prints the median, 99th percentile and maximum of some latencies.
+     *
+     * @param name The kind of request.
+     * @param latencies The latencies in nanoseconds.
+     */
+    private static void printLatencies(String name, long[] latencies) {
+        if (latencies.length == 0) return;
+        Arrays.sort(latencies);
+        System.out.printf("%-6s %,8d requests  p50 %,8.0f us  p99 %,8.0f us  max %,8.0f us%n", name, latencies.length,
+                latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3, latencies[latencies.length - 1] / 1e3);
+    }
+
+    /**
+     * Prints how long the ranking itself takes to answer, without HTTP.
+     *
+     * @param ranking A ranking filled by the run.
+     */
+    private static void timeRanking(ScoreRanking ranking) {
+        int calls = 100_000;
+        int players = ranking.size();
+        if (players == 0) return;
+        int sink = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < calls; i++) sink += ranking.getTop(10).size();
+        long top = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for (int i = 0; i < calls; i++) sink += ranking.getRank("Client" + (i % players * RealMain.Difficulty.values().length));
+        long rank = System.nanoTime() - begin;
+        System.out.printf("Ranking of %d players, in process: top ten %.2f us, rank %.2f us (%d)%n", players, top / 1e3 / calls, rank / 1e3 / calls, sink & 1);
+    }
+
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Fixtures comparing the old way of choosing a multiplication question, which
+ * trial divided the answer and listed all its factors, with the number tables.
+ * Each call handles one random answer of up to 6 digits, as on hard.
+ */
+public class NumberTablesFixtures {
+
+    private static final int ANSWER_COUNT = 1024;
+
+    private NumberTablesFixtures() {}
+
+    /**
+     * @return Random answers of 1 to 6 digits.
+     */
+    private static int[] answers() {
+        SplittableRandom rand = FixtureSetup.random();
+        int[] answers = new int[ANSWER_COUNT];
+        for (int i = 0; i < ANSWER_COUNT; i++) {
+            int digits = rand.nextInt(6) + 1;
+            int min = digits == 1 ? 1 : (int) Math.pow(10, digits - 1);
+            answers[i] = rand.nextInt(min, min * 10);
+        }
+        return answers;
+    }
+
+    /**
+     * @return A supplier checking an answer for primality and picking a factor, the way the generator used to.
+     */
+    public static IntSupplier legacy() {
+        int[] answers = answers();
+        SplittableRandom rand = FixtureSetup.random(1);
+        int[] next = {0};
+        return () -> {
+            int answer = answers[next[0]++ & (ANSWER_COUNT - 1)];
+
+            boolean prime = true;
+            for (int i = 2; i <= answer / 2; ++i) {
+                if (answer % i == 0) {
+                    prime = false;
+                    break;
+                }
+            }
+            if (prime) return 0;
+
+            ArrayList<Integer> factors = new ArrayList<>();
+            for (int i = 2; i <= answer / 2; i++) {
+                if (answer % i == 0) factors.add(i);
+            }
+            return factors.get(rand.nextInt(factors.size()));
+        };
+    }
+
+    /**
+     * @return A supplier checking an answer for primality and picking a factor using the number tables.
+     */
+    public static IntSupplier tables() {
+        int[] answers = answers();
+        SplittableRandom rand = FixtureSetup.random(1);
+        NumberTables tables = NumberTables.forDifficulty(RealMain.Difficulty.HARD);
+        int[] next = {0};
+        return () -> {
+            int answer = answers[next[0]++ & (ANSWER_COUNT - 1)];
+            if (!tables.isComposite(answer)) return 0;
+            return tables.randomFactor(answer, rand);
+        };
+    }
+
+}
@@ -0,0 +1,80 @@
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Fixtures for the score ranking benchmarks. Every call works on one ranking
+ * shared by all the benchmark threads, already holding a score for each of a
+ * fixed number of players.
+ */
+public class ScoreRankingFixtures {
+
+    private static final int PLAYERS = 10_000;
+    private static final int MAX_SCORE = 101_000;   // a hard game finished in no time, without mistakes
+    // The most a submitted score beats the player's best by.
+    private static final int SCORE_STEP = 16;
+    private static final RealMain.GameType GAME_TYPE = RealMain.GameType.CROSS_NUMBER_PUZZLE;
+    private static final RealMain.Difficulty DIFFICULTY = RealMain.Difficulty.HARD;
+
+    private ScoreRankingFixtures() {}
+
+    /**
+     * Returns the operations on a shared ranking: submitting a new best score
+     * for a random player, looking up a random player's rank and reading the
+     * top ten. Each thread picks its own random numbers.
+     *
+     * @param locking "perBinLock" to use the ranking as it is, where a submission
+     *                only locks one bin of its map, or "globalLock" to make
+     *                every operation hold one lock, for comparison.
+     * @return The submit, rank and top ten operations, in that order.
+     */
+    public static IntSupplier[] operations(String locking) {
+        boolean globalLock = FixtureSetup.option("locking", locking, "perBinLock", "globalLock") == 1;
+
+        ScoreRanking ranking = new ScoreRanking(GAME_TYPE, DIFFICULTY);
+        SplittableRandom rand = FixtureSetup.random();
+        String[] names = new String[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            names[i] = "Player" + i;
+            ranking.submit(new Highscore(GAME_TYPE, DIFFICULTY, names[i], rand.nextInt(MAX_SCORE)));
+        }
+
+        // Each submission beats the player's best by a little, so every one
+        // replaces a best score and the scores only creep upwards. Random
+        // scores would soon all lose to the players' bests, and the benchmark
+        // would measure less and less work as it ran.
+        IntSupplier submit = () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String name = names[random.nextInt(PLAYERS)];
+            int score = ranking.getBest(name).getScore() + 1 + random.nextInt(SCORE_STEP);
+            return ranking.submit(new Highscore(GAME_TYPE, DIFFICULTY, name, score));
+        };
+        IntSupplier rank = () -> ranking.getRank(names[ThreadLocalRandom.current().nextInt(PLAYERS)]);
+        IntSupplier top = () -> {
+            List<Highscore> highscores = ranking.getTop(10);
+            return highscores.get(highscores.size() - 1).getScore();
+        };
+        if (!globalLock) return new IntSupplier[] {submit, rank, top};
+
+        Object lock = new Object();
+        return new IntSupplier[] {
+                () -> {
+                    synchronized (lock) {
+                        return submit.getAsInt();
+                    }
+                },
+                () -> {
+                    synchronized (lock) {
+                        return rank.getAsInt();
+                    }
+                },
+                () -> {
+                    synchronized (lock) {
+                        return top.getAsInt();
+                    }
+                }
+        };
+    }
+
+}
@@ -0,0 +1,113 @@
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Fixtures for the scoring benchmarks.
+ */
+public class ScoringFixtures {
+
+    private static final int GAME_COUNT = 1024;
+    private static final int MIN_RANDOM_SCORE = 100;
+    private static final int MAX_RANDOM_SCORE = 10_000;
+    // The number of rising scores added before the leaderboard is filled again.
+    private static final int RISING_SCORE_LIMIT = 1 << 30;
+
+    private ScoringFixtures() {}
+
+    /**
+     * @return A supplier which calculates the score of a random finished game on every call.
+     */
+    public static IntSupplier calculateScore() {
+        SplittableRandom rand = FixtureSetup.random();
+        RealMain.Difficulty[] difficulties = new RealMain.Difficulty[GAME_COUNT];
+        long[] times = new long[GAME_COUNT];
+        int[] mistakes = new int[GAME_COUNT];
+        for (int i = 0; i < GAME_COUNT; i++) {
+            difficulties[i] = RealMain.Difficulty.values()[rand.nextInt(RealMain.Difficulty.values().length)];
+            times[i] = rand.nextInt(1, 3600);
+            mistakes[i] = rand.nextInt(10);
+        }
+        int[] next = {0};
+        return () -> {
+            int i = next[0]++ & (GAME_COUNT - 1);
+            return CrossNumberPuzzleScoring.calculateScore(difficulties[i], times[i], mistakes[i]);
+        };
+    }
+
+    /**
+     * Returns a supplier which adds a new highscore to a full leaderboard on
+     * every call. Each score is higher than all before it, so it always
+     * qualifies, goes to the top of its table, which moves the most
+     * highscores, and the lowest highscore makes way for it.
+     *
+     * @return The supplier, returning 1 if the score was added and 0 otherwise.
+     */
+    public static IntSupplier addHighscore() {
+        Leaderboard[] leaderboard = {fullLeaderboard(FixtureSetup.random())};
+        RealMain.Difficulty[] difficulties = randomDifficulties(FixtureSetup.random(1));
+        int[] next = {0};
+        return () -> {
+            int i = next[0]++;
+            // Start again before the scores would overflow.
+            if (i == RISING_SCORE_LIMIT) {
+                leaderboard[0] = fullLeaderboard(FixtureSetup.random());
+                next[0] = i = 0;
+            }
+            int score = MAX_RANDOM_SCORE + i;
+            return CrossNumberPuzzleScoring.addHighscore(leaderboard[0], difficulties[i & (GAME_COUNT - 1)], score, () -> "Player") != null ? 1 : 0;
+        };
+    }
+
+    /**
+     * Returns a supplier which offers a random score to a leaderboard full of
+     * higher scores on every call. No score qualifies, so this measures only
+     * the check which turns down the scores of most games.
+     *
+     * @return The supplier, returning 1 if the score was added and 0 otherwise.
+     */
+    public static IntSupplier rejectHighscore() {
+        SplittableRandom rand = FixtureSetup.random();
+        Leaderboard leaderboard = new Leaderboard(CrossNumberPuzzleScoring.HIGHSCORES_PER_DIFFICULTY);
+        for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+            for (int i = 0; i < CrossNumberPuzzleScoring.HIGHSCORES_PER_DIFFICULTY; i++) {
+                leaderboard.add(new Highscore(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, "Player" + i, MAX_RANDOM_SCORE + i));
+            }
+        }
+
+        RealMain.Difficulty[] difficulties = randomDifficulties(rand);
+        int[] scores = new int[GAME_COUNT];
+        for (int i = 0; i < GAME_COUNT; i++) scores[i] = rand.nextInt(MIN_RANDOM_SCORE, MAX_RANDOM_SCORE);
+        int[] next = {0};
+        return () -> {
+            int i = next[0]++ & (GAME_COUNT - 1);
+            return CrossNumberPuzzleScoring.addHighscore(leaderboard, difficulties[i], scores[i], () -> "Player") != null ? 1 : 0;
+        };
+    }
+
+    /**
+     * @param rand The source of randomness.
+     * @return A leaderboard with every table full of random scores.
+     */
+    private static Leaderboard fullLeaderboard(SplittableRandom rand) {
+        Leaderboard leaderboard = new Leaderboard(CrossNumberPuzzleScoring.HIGHSCORES_PER_DIFFICULTY);
+        for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+            for (int i = 0; i < CrossNumberPuzzleScoring.HIGHSCORES_PER_DIFFICULTY; i++) {
+                leaderboard.add(new Highscore(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, "Player" + i, rand.nextInt(MIN_RANDOM_SCORE, MAX_RANDOM_SCORE)));
+            }
+        }
+        return leaderboard;
+    }
+
+    /**
+     * @param rand The source of randomness.
+     * @return The difficulties of {@value #GAME_COUNT} random games.
+     */
+    private static RealMain.Difficulty[] randomDifficulties(SplittableRandom rand) {
+        RealMain.Difficulty[] difficulties = new RealMain.Difficulty[GAME_COUNT];
+        for (int i = 0; i < GAME_COUNT; i++) {
+            difficulties[i] = RealMain.Difficulty.values()[rand.nextInt(RealMain.Difficulty.values().length)];
+        }
+        return difficulties;
+    }
+
+}
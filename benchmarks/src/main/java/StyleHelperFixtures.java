@@ -0,0 +1,50 @@
+import java.util.function.Supplier;
+
+/**
+ * Fixtures for the StyleHelper benchmarks. The styles are the ones the puzzle
+ * window gives its squares.
+ */
+public class StyleHelperFixtures {
+
+    private static final String SQUARE_STYLE = "-fx-font-size: 20; -fx-text-fill: black; ";
+
+    private StyleHelperFixtures() {}
+
+    /**
+     * @return A supplier which adds a single style to a helper on every call.
+     */
+    public static Supplier<StyleHelper> addStyle() {
+        StyleHelper helper = new StyleHelper(SQUARE_STYLE);
+        return () -> {
+            helper.addStyle("-fx-text-fill: #00cc00");
+            return helper;
+        };
+    }
+
+    /**
+     * @return A supplier which combines a helper's styles into a string on every call.
+     */
+    public static Supplier<String> getStyle() {
+        StyleHelper helper = new StyleHelper(SQUARE_STYLE);
+        return helper::getStyle;
+    }
+
+    /**
+     * Returns a supplier which restyles a square the way the puzzle window does
+     * when a digit is typed: reading back the square's style, changing the text
+     * colour and combining the styles again.
+     *
+     * @return The supplier.
+     */
+    public static Supplier<String> restyleSquare() {
+        StyleHelper helper = new StyleHelper();
+        String[] style = {SQUARE_STYLE};
+        return () -> {
+            helper.replaceStyles(style[0]);
+            helper.addStyle("-fx-text-fill: black");
+            style[0] = helper.getStyle();
+            return style[0];
+        };
+    }
+
+}
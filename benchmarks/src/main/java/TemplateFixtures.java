@@ -0,0 +1,63 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Fixtures for the template loading benchmarks.
+ */
+public class TemplateFixtures {
+
+    private TemplateFixtures() {}
+
+    /**
+     * Returns a supplier which reads and checks the given template file on
+     * every call.
+     *
+     * @param template The path of the template file, e.g. "hard/puzzle1.txt".
+     * @return The supplier.
+     */
+    public static Supplier<PuzzleTemplate> load(String template) {
+        File file = FixtureSetup.templateFile(template);
+        return () -> {
+            try {
+                return PuzzleTemplate.load(file);
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a supplier which checks the given template's lines on every
+     * call. The file itself is only read once, so this leaves out the disk.
+     *
+     * @param template The path of the template file, e.g. "hard/puzzle1.txt".
+     * @return The supplier.
+     * @throws IOException If the template could not be read.
+     */
+    public static Supplier<PuzzleTemplate> parse(String template) throws IOException {
+        File file = FixtureSetup.templateFile(template);
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        return () -> {
+            try {
+                return PuzzleTemplate.parse(file.getName(), lines);
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * @return A supplier which reads every template in the template folder on every call.
+     */
+    public static Supplier<PuzzleTemplateRegistry> registry() {
+        File folder = FixtureSetup.templateFolder();
+        return () -> PuzzleTemplateRegistry.load(folder);
+    }
+
+}
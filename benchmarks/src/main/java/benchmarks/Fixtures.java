@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * The game's classes live in the default package, which cannot be imported
+ * from a named package, while JMH only accepts benchmarks in a named package.
+ * The fixture classes therefore live in the default package and hand out the
+ * code to be measured as standard functional interfaces. This class looks them
+ * up once per trial; the measured calls go straight through the interface.
+ */
+public final class Fixtures {
+
+    private Fixtures() {}
+
+    /**
+     * Calls a public static factory method on a fixture class in the default
+     * package.
+     *
+     * @param className The name of the fixture class.
+     * @param methodName The name of the factory method.
+     * @param args The arguments, all of which must be strings.
+     * @param <T> The type of the returned fixture.
+     * @return Whatever the factory method returns.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(String className, String methodName, String... args) {
+        try {
+            Class<?>[] parameterTypes = new Class<?>[args.length];
+            for (int i = 0; i < args.length; i++) parameterTypes[i] = String.class;
+            Method method = Class.forName(className).getMethod(methodName, parameterTypes);
+            return (T) method.invoke(null, (Object[]) args);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Fixture " + className + "." + methodName + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Fixture " + className + "." + methodName + " not found", e);
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures how fast whole puzzles are generated for each difficulty.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"EASY", "HARD"})
+    public String difficulty;
+
+    private Supplier<?> generate;
+
+    @Setup
+    public void setup() {
+        generate = Fixtures.create("GenerationFixtures", "generate", difficulty);
+    }
+
+    @Benchmark
+    public Object generate() {
+        return generate.get();
+    }
+
+}
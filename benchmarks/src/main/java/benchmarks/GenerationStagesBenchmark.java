@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures each stage of generating a puzzle, template by template: filling
+ * the template with digits, creating the questions, and both together.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationStagesBenchmark {
+
+    @Param({"easy/puzzle1.txt", "easy/puzzle2.txt", "easy/puzzle3.txt", "easy/puzzle4.txt", "easy/puzzle5.txt",
+            "hard/puzzle1.txt", "hard/puzzle2.txt", "hard/puzzle3.txt"})
+    public String template;
+
+    private Supplier<?> fill;
+    private Supplier<?> createQuestions;
+    private Supplier<?> generate;
+
+    @Setup
+    public void setup() {
+        fill = Fixtures.create("GenerationFixtures", "fill", template);
+        createQuestions = Fixtures.create("GenerationFixtures", "createQuestions", template);
+        generate = Fixtures.create("GenerationFixtures", "generateFrom", template);
+    }
+
+    @Benchmark
+    public Object fill() {
+        return fill.get();
+    }
+
+    @Benchmark
+    public Object createQuestions() {
+        return createQuestions.get();
+    }
+
+    @Benchmark
+    public Object generate() {
+        return generate.get();
+    }
+
+}
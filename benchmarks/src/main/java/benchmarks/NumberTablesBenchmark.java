@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Compares trial division with the precomputed number tables when deciding
+ * whether an answer can be a multiplication and picking its factors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberTablesBenchmark {
+
+    private IntSupplier legacy;
+    private IntSupplier tables;
+
+    @Setup
+    public void setup() {
+        legacy = Fixtures.create("NumberTablesFixtures", "legacy");
+        tables = Fixtures.create("NumberTablesFixtures", "tables");
+    }
+
+    @Benchmark
+    public int trialDivision() {
+        return legacy.getAsInt();
+    }
+
+    @Benchmark
+    public int numberTables() {
+        return tables.getAsInt();
+    }
+
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Measures submitting scores to, and reading ranks and the top ten from, one
+ * score ranking shared by 1, 4, 16 and 64 threads, as the leaderboard server
+ * does. The ranking, whose submissions only lock one bin of its map, is
+ * compared with the same ranking behind one global lock, which every
+ * operation has to take.
+ * Each thread count is a subclass, e.g. {@code ScoreRankingBenchmark.Threads64};
+ * run them all with {@code ScoreRankingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class ScoreRankingBenchmark {
+
+    @Param({"perBinLock", "globalLock"})
+    public String locking;
+
+    private IntSupplier submit;
+    private IntSupplier rank;
+    private IntSupplier top;
+
+    // A fresh ranking for every iteration, so the scores submitted by one do
+    // not change the work of the next.
+    @Setup(Level.Iteration)
+    public void setup() {
+        IntSupplier[] operations = Fixtures.create("ScoreRankingFixtures", "operations", locking);
+        submit = operations[0];
+        rank = operations[1];
+        top = operations[2];
+    }
+
+    @Benchmark
+    public int submit() {
+        return submit.getAsInt();
+    }
+
+    @Benchmark
+    public int rank() {
+        return rank.getAsInt();
+    }
+
+    @Benchmark
+    public int top() {
+        return top.getAsInt();
+    }
+
+    @Threads(1)
+    public static class Threads1 extends ScoreRankingBenchmark {}
+
+    @Threads(4)
+    public static class Threads4 extends ScoreRankingBenchmark {}
+
+    @Threads(16)
+    public static class Threads16 extends ScoreRankingBenchmark {}
+
+    @Threads(64)
+    public static class Threads64 extends ScoreRankingBenchmark {}
+
+}
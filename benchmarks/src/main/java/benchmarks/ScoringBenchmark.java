@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Measures calculating a game's score and offering it to a full highscore
+ * leaderboard, both when it makes the leaderboard and when it does not.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private IntSupplier calculateScore;
+    private IntSupplier addHighscore;
+    private IntSupplier rejectHighscore;
+
+    @Setup
+    public void setup() {
+        calculateScore = Fixtures.create("ScoringFixtures", "calculateScore");
+        addHighscore = Fixtures.create("ScoringFixtures", "addHighscore");
+        rejectHighscore = Fixtures.create("ScoringFixtures", "rejectHighscore");
+    }
+
+    @Benchmark
+    public int calculateScore() {
+        return calculateScore.getAsInt();
+    }
+
+    @Benchmark
+    public int addHighscore() {
+        return addHighscore.getAsInt();
+    }
+
+    @Benchmark
+    public int rejectHighscore() {
+        return rejectHighscore.getAsInt();
+    }
+
+}
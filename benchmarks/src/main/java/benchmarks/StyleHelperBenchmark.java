@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the StyleHelper calls the puzzle window makes for its squares.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StyleHelperBenchmark {
+
+    private Supplier<?> addStyle;
+    private Supplier<?> getStyle;
+    private Supplier<?> restyleSquare;
+
+    @Setup
+    public void setup() {
+        addStyle = Fixtures.create("StyleHelperFixtures", "addStyle");
+        getStyle = Fixtures.create("StyleHelperFixtures", "getStyle");
+        restyleSquare = Fixtures.create("StyleHelperFixtures", "restyleSquare");
+    }
+
+    @Benchmark
+    public Object addStyle() {
+        return addStyle.get();
+    }
+
+    @Benchmark
+    public Object getStyle() {
+        return getStyle.get();
+    }
+
+    @Benchmark
+    public Object restyleSquare() {
+        return restyleSquare.get();
+    }
+
+}
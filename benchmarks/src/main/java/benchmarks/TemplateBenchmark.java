@@ -0,0 +1,42 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures reading a template from file and checking it, with and without the
+ * disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @Param({"easy/puzzle1.txt", "hard/puzzle1.txt"})
+    public String template;
+
+    private Supplier<?> load;
+    private Supplier<?> parse;
+
+    @Setup
+    public void setup() {
+        load = Fixtures.create("TemplateFixtures", "load", template);
+        parse = Fixtures.create("TemplateFixtures", "parse", template);
+    }
+
+    @Benchmark
+    public Object load() {
+        return load.get();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return parse.get();
+    }
+
+}
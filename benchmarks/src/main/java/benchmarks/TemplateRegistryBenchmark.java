@@ -0,0 +1,32 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures reading every template in the template folder, as done once when
+ * the game starts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRegistryBenchmark {
+
+    private Supplier<?> registry;
+
+    @Setup
+    public void setup() {
+        registry = Fixtures.create("TemplateFixtures", "registry");
+    }
+
+    @Benchmark
+    public Object loadAll() {
+        return registry.get();
+    }
+
+}
@@ -0,0 +1,217 @@
+import java.math.BigInteger;
+
+/**
+ * This interface is a rule the answer in a slot has to follow, e.g. "the answer
+ * is even". A rule is checked once every digit of the answer is known, but it
+ * can also rule out digits at certain positions up front, e.g. odd last digits
+ * for even answers, so the search never tries them at all.
+ */
+public interface AnswerConstraint {
+
+    // The digit masks have bit d set if digit d is allowed.
+    short ALL_DIGITS = 0x3FF;
+    short EVEN_DIGITS = 0x155;
+    short ODD_DIGITS = 0x2AA;
+
+    /**
+     * Checks an answer that fits in a long.
+     *
+     * @param answer The answer.
+     * @return True if the answer follows the rule, false otherwise.
+     */
+    boolean test(long answer);
+
+    /**
+     * Checks an answer of any length, for slots too long for a long.
+     *
+     * @param answer The answer.
+     * @return True if the answer follows the rule, false otherwise.
+     */
+    boolean test(BigInteger answer);
+
+    /**
+     * Returns the digits that can appear at a position of an answer. Ruling out
+     * digits here is optional; it only lets the search skip them.
+     *
+     * @param position The position in the answer, starting at 0 for the first digit.
+     * @param length The number of digits in the answer.
+     * @return The allowed digits as a mask, bit d being set if digit d is allowed.
+     */
+    default short allowedDigits(int position, int length) {
+        return ALL_DIGITS;
+    }
+
+    /**
+     * @param other Another rule.
+     * @return A rule which is followed if both this rule and the other rule are.
+     */
+    default AnswerConstraint and(AnswerConstraint other) {
+        AnswerConstraint first = this;
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return first.test(answer) && other.test(answer);
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return first.test(answer) && other.test(answer);
+            }
+
+            @Override
+            public short allowedDigits(int position, int length) {
+                return (short) (first.allowedDigits(position, length) & other.allowedDigits(position, length));
+            }
+        };
+    }
+
+    /**
+     * @return A rule for even answers.
+     */
+    static AnswerConstraint even() {
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return answer % 2 == 0;
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return !answer.testBit(0);
+            }
+
+            @Override
+            public short allowedDigits(int position, int length) {
+                return position == length - 1 ? EVEN_DIGITS : ALL_DIGITS;
+            }
+        };
+    }
+
+    /**
+     * @return A rule for odd answers.
+     */
+    static AnswerConstraint odd() {
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return answer % 2 != 0;
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return answer.testBit(0);
+            }
+
+            @Override
+            public short allowedDigits(int position, int length) {
+                return position == length - 1 ? ODD_DIGITS : ALL_DIGITS;
+            }
+        };
+    }
+
+    /**
+     * @param value The answer.
+     * @return A rule for answers equal to the given value, i.e. a clue that gives the answer away.
+     */
+    static AnswerConstraint equalTo(long value) {
+        return equalTo(BigInteger.valueOf(value));
+    }
+
+    /**
+     * @param value The answer.
+     * @return A rule for answers equal to the given value, i.e. a clue that gives the answer away.
+     */
+    static AnswerConstraint equalTo(BigInteger value) {
+        String digits = value.toString();
+        boolean fitsInLong = value.bitLength() < Long.SIZE;
+        long longValue = value.longValue();
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return fitsInLong && answer == longValue;
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return answer.equals(value);
+            }
+
+            @Override
+            public short allowedDigits(int position, int length) {
+                if (digits.length() != length) return 0;
+                return (short) (1 << digits.charAt(position) - '0');
+            }
+        };
+    }
+
+    /**
+     * @param divisor The divisor, at least 1.
+     * @return A rule for answers that are a multiple of the divisor, e.g. "a multiple of 7".
+     */
+    static AnswerConstraint multipleOf(long divisor) {
+        if (divisor < 1) throw new IllegalArgumentException("Not a valid divisor: " + divisor);
+        BigInteger bigDivisor = BigInteger.valueOf(divisor);
+        // Multiples of 2 and 5 can be told apart by their last digit.
+        short lastDigits = divisor % 10 == 0 ? 0x001 : divisor % 5 == 0 ? 0x021 : divisor % 2 == 0 ? EVEN_DIGITS : ALL_DIGITS;
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return answer % divisor == 0;
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return answer.mod(bigDivisor).signum() == 0;
+            }
+
+            @Override
+            public short allowedDigits(int position, int length) {
+                return position == length - 1 ? lastDigits : ALL_DIGITS;
+            }
+        };
+    }
+
+    /**
+     * @return A rule for answers that are prime.
+     */
+    static AnswerConstraint prime() {
+        NumberTables numberTables = NumberTables.forDifficulty(RealMain.Difficulty.HARD);
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return numberTables.isPrime(answer);
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return numberTables.isPrime(answer);
+            }
+
+            @Override
+            public short allowedDigits(int position, int length) {
+                if (position != length - 1) return ALL_DIGITS;
+                // Apart from 2 and 5 themselves, primes end in 1, 3, 7 or 9.
+                return length == 1 ? (short) 0x0AC : (short) 0x28A;
+            }
+        };
+    }
+
+    /**
+     * @return A rule for answers that are not prime.
+     */
+    static AnswerConstraint notPrime() {
+        NumberTables numberTables = NumberTables.forDifficulty(RealMain.Difficulty.HARD);
+        return new AnswerConstraint() {
+            @Override
+            public boolean test(long answer) {
+                return !numberTables.isPrime(answer);
+            }
+
+            @Override
+            public boolean test(BigInteger answer) {
+                return !numberTables.isPrime(answer);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,47 @@
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+
+/**
+ * This enum is the state of an answer, either a square in the puzzle grid or
+ * the puzzle as a whole. Each state other than neutral has a pseudo-class, so
+ * its colour comes from the stylesheet, e.g. ".outcome-label:wrong", and
+ * changing state does not touch a node's inline style.
+ */
+public enum AnswerState {
+    NEUTRAL(null, Color.BLACK),
+    CORRECT("correct", Color.web("#00cc00")),
+    WRONG("wrong", Color.ORANGERED);
+
+    private final PseudoClass pseudoClass;
+    private final Color colour;
+
+    /**
+     * @param pseudoClass The name of the pseudo-class, or null for none.
+     * @param colour The colour of text in this state, for squares which are drawn rather than styled.
+     */
+    AnswerState(String pseudoClass, Color colour) {
+        this.pseudoClass = pseudoClass == null ? null : PseudoClass.getPseudoClass(pseudoClass);
+        this.colour = colour;
+    }
+
+    /**
+     * @return The colour of text in this state, matching the stylesheet's colour for squares.
+     */
+    public Color getColour() {
+        return colour;
+    }
+
+    /**
+     * Puts a node in this state, turning this state's pseudo-class on and the
+     * others off.
+     *
+     * @param node The node.
+     */
+    public void applyTo(Node node) {
+        for (AnswerState state : values()) {
+            if (state.pseudoClass != null) node.pseudoClassStateChanged(state.pseudoClass, state == this);
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps track of the digits the user has entered in a puzzle. It is
+ * told about every change to a square and keeps running counts of the filled
+ * and correct squares, in the whole grid and in each slot, so checking the
+ * puzzle never has to go through the grid. It also remembers which squares
+ * have changed since they were last checked, so only those need colouring.
+ */
+public class AnswerTracker {
+
+    /**
+     * Something to be done for each changed square.
+     */
+    public interface SquareVisitor {
+        /**
+         * @param row The row the square is at.
+         * @param col The col the square is at.
+         */
+        void visit(int row, int col);
+    }
+
+    private static final byte NO_DIGIT = -1;
+
+    private final PuzzleGrid solution;
+    private final PuzzleSlots slots;
+    private final int rowSize;
+    private final byte[] digits;    // the digit entered in each square, or -1
+    private final int[] slotCorrect;    // the number of correct squares in each slot
+    private final int usedSquares;
+    private int filledSquares = 0;
+    private int correctSquares = 0;
+    private int solvedSlots = 0;
+    // The squares changed since they were last visited, as a stack without repeats.
+    private final int[] changedSquares;
+    private final boolean[] changed;
+    private int changedCount = 0;
+    private Runnable onSolved;
+
+    /**
+     * Creates a tracker for a puzzle with no digits entered yet.
+     *
+     * @param puzzle The puzzle.
+     */
+    public AnswerTracker(CrossNumberPuzzle puzzle) {
+        solution = puzzle.getSolution();
+        slots = puzzle.getTemplate().getSlots();
+        rowSize = puzzle.getRowSize();
+        digits = new byte[puzzle.getColSize() * rowSize];
+        Arrays.fill(digits, NO_DIGIT);
+        slotCorrect = new int[slots.size()];
+        changedSquares = new int[digits.length];
+        changed = new boolean[digits.length];
+
+        int used = 0;
+        for (int row = 0; row < puzzle.getColSize(); row++) {
+            for (int col = 0; col < rowSize; col++) {
+                if (solution.isUsed(row, col)) used++;
+            }
+        }
+        usedSquares = used;
+    }
+
+    /**
+     * Sets a function to be run as soon as every square holds the correct
+     * digit, e.g. to end the game without the user submitting.
+     *
+     * @param onSolved The function, or null for none.
+     */
+    public void setOnSolved(Runnable onSolved) {
+        this.onSolved = onSolved;
+    }
+
+    /**
+     * Records a change to a square, updating the counts.
+     *
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @param digit The digit now in the square, or -1 if it is empty.
+     */
+    public void setDigit(int row, int col, int digit) {
+        int square = row * rowSize + col;
+        int oldDigit = digits[square];
+        if (oldDigit == digit) return;
+        digits[square] = (byte) digit;
+
+        // Mark the square as changed.
+        if (!changed[square]) {
+            changed[square] = true;
+            changedSquares[changedCount++] = square;
+        }
+
+        // Update the counts.
+        int answer = solution.getDigit(row, col);
+        if (oldDigit == NO_DIGIT) filledSquares++;
+        if (digit == NO_DIGIT) filledSquares--;
+        int correctChange = (digit == answer ? 1 : 0) - (oldDigit == answer ? 1 : 0);
+        if (correctChange == 0) return;
+        correctSquares += correctChange;
+        updateSlot(slots.getAcrossSlotAt(row, col), correctChange);
+        updateSlot(slots.getDownSlotAt(row, col), correctChange);
+
+        if (correctChange > 0 && isSolved() && onSolved != null) onSolved.run();
+    }
+
+    /**
+     * Updates the count of correct squares in a slot.
+     *
+     * @param slot The index of the slot, or -1 if there is none.
+     * @param correctChange 1 if a square became correct, -1 if it stopped being correct.
+     */
+    private void updateSlot(int slot, int correctChange) {
+        if (slot == -1) return;
+        int length = slots.get(slot).getLength();
+        if (slotCorrect[slot] == length) solvedSlots--;
+        slotCorrect[slot] += correctChange;
+        if (slotCorrect[slot] == length) solvedSlots++;
+    }
+
+    /**
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return True if the square has a digit, false otherwise.
+     */
+    public boolean hasDigit(int row, int col) {
+        return digits[row * rowSize + col] != NO_DIGIT;
+    }
+
+    /**
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return True if the square has the correct digit, false otherwise.
+     */
+    public boolean isCorrect(int row, int col) {
+        return digits[row * rowSize + col] == solution.getDigit(row, col);
+    }
+
+    /**
+     * @return True if every square has a digit, false otherwise.
+     */
+    public boolean isComplete() {
+        return filledSquares == usedSquares;
+    }
+
+    /**
+     * @return True if every square has the correct digit, false otherwise.
+     */
+    public boolean isSolved() {
+        return correctSquares == usedSquares;
+    }
+
+    /**
+     * @return The number of squares with an incorrect digit.
+     */
+    public int getWrongSquares() {
+        return filledSquares - correctSquares;
+    }
+
+    /**
+     * @param slot The index of the slot.
+     * @return True if every square in the slot has the correct digit, false otherwise.
+     */
+    public boolean isSlotSolved(int slot) {
+        return slotCorrect[slot] == slots.get(slot).getLength();
+    }
+
+    /**
+     * @return The number of slots with every square correct.
+     */
+    public int getSolvedSlots() {
+        return solvedSlots;
+    }
+
+    /**
+     * Visits every square changed since the last call, then forgets them.
+     *
+     * @param visitor What to do for each square.
+     */
+    public void visitChangedSquares(SquareVisitor visitor) {
+        for (int i = 0; i < changedCount; i++) {
+            int square = changedSquares[i];
+            changed[square] = false;
+            visitor.visit(square / rowSize, square % rowSize);
+        }
+        changedCount = 0;
+    }
+
+}
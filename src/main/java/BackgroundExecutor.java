@@ -0,0 +1,51 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class provides the executor for work that should not be done on the
+ * JavaFX application thread, such as generating puzzles. On a JDK with virtual
+ * threads (21 or later), every task gets its own virtual thread. The game is
+ * still built for Java 8, so virtual threads are looked up at run time, and on
+ * older JDKs tasks run on a pool of daemon threads instead.
+ */
+public class BackgroundExecutor {
+
+    private BackgroundExecutor() {}
+
+    /*
+        The executor is created lazily, the first time it is needed.
+     */
+    private static class Holder {
+        static final ExecutorService EXECUTOR = create();
+    }
+
+    /**
+     * @return The executor for background work.
+     */
+    public static ExecutorService get() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * @return A virtual thread per task executor if the JDK has one, otherwise a pool of daemon threads.
+     */
+    private static ExecutorService create() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            // No virtual threads, so fall back to daemon threads which do not
+            // keep the application running once the window is closed.
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "background-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+}
@@ -0,0 +1,355 @@
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * This board draws the whole grid on a single canvas. The square being edited
+ * gets the one text field, which is moved from square to square by clicking,
+ * the arrow keys or tab. The board is made of the same three nodes however
+ * large the grid is, so it suits large grids.
+ */
+public class CanvasPuzzleBoard extends Region implements PuzzleBoard {
+
+    // The look of the squares, matching the stylesheet and the text field board.
+    private static final Color USED_COLOUR = Color.WHITE;
+    private static final Color UNUSED_COLOUR = Color.GREY;
+    private static final Color BORDER_COLOUR = Color.BLACK;
+    private static final Color FIELD_BORDER_COLOUR = Color.web("#b5b5b5");
+    private static final double SQUARE_PADDING = 3;
+    private static final double DISABLED_OPACITY = 0.4;
+    private static final char NO_DIGIT = 0;
+
+    private final AnswerTracker answers;
+    private final int rowSize;
+    private final int colSize;
+    private final boolean[] used;
+    private final int[] numbers;    // the question number starting at each square, or 0
+    private final char[] digits;
+    private final AnswerState[] states;
+    private final Canvas canvas = new Canvas();
+    private final TextField editor = new TextField();
+    private int editing = -1;   // the square with the text field, or -1
+    private boolean movingEditor = false;
+    private SquareListener onSquareFocused;
+    private double dimension = -1;
+    // The fonts for digits and question numbers, only replaced when their size changes.
+    private final ObjectProperty<Font> digitFont = new SimpleObjectProperty<>(this, "digitFont");
+    private Font numberFont;
+
+    /**
+     * Creates the board and all its components.
+     *
+     * @param game The game.
+     */
+    public CanvasPuzzleBoard(CrossNumberPuzzleGame game) {
+        // Set the properties of the board.
+        this.setMinWidth(RealMain.minWindowWidth / 2 - 20);
+        this.setMinHeight(RealMain.minWindowHeight - 20);
+        this.setPadding(new Insets(5));
+
+        answers = game.getAnswers();
+
+        // Read the squares and number the questions.
+        rowSize = game.getRowSize();
+        colSize = game.getColSize();
+        used = new boolean[colSize * rowSize];
+        numbers = new int[colSize * rowSize];
+        digits = new char[colSize * rowSize];
+        states = new AnswerState[colSize * rowSize];
+        int counter = 1;    // counter for question number
+        for (int row = 0; row < colSize; row++) {
+            for (int col = 0; col < rowSize; col++) {
+                char templateChar = game.getCharAt(row, col);
+                used[index(row, col)] = templateChar != '-';
+                states[index(row, col)] = AnswerState.NEUTRAL;
+                if (templateChar == 'B' || templateChar == 'A' || templateChar == 'D') numbers[index(row, col)] = counter++;
+            }
+        }
+
+        // Clicking a square moves the text field to it.
+        canvas.setOnMousePressed(this::squarePressed);
+        this.getChildren().add(canvas);
+
+        // Create the text field.
+        editor.getStyleClass().add("puzzle-square-text-field");
+        editor.setAlignment(Pos.CENTER);
+        editor.fontProperty().bind(digitFont);
+        editor.setVisible(false);
+        editor.addEventFilter(KeyEvent.KEY_PRESSED, this::editorKeyPressed);
+        // Set constraints on the contents of the text field, the same as on the text field board.
+        editor.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (movingEditor) return;
+
+            // Ensure the text field can only contain a single number.
+            if (!newValue.isEmpty() && !newValue.matches("[0-9]")) {
+                editor.setText(oldValue);
+                return;
+            }
+
+            // Store the digit and reset the square back to neutral as the value may have changed.
+            digits[editing] = newValue.isEmpty() ? NO_DIGIT : newValue.charAt(0);
+            states[editing] = AnswerState.NEUTRAL;
+            AnswerState.NEUTRAL.applyTo(editor);
+
+            // Tell the game about the new digit.
+            answers.setDigit(editing / rowSize, editing % rowSize, newValue.isEmpty() ? -1 : newValue.charAt(0) - '0');
+        });
+        this.getChildren().add(editor);
+
+        // Redraw the squares faded out when the board is disabled, like disabled text fields.
+        this.disabledProperty().addListener((observable, oldValue, newValue) -> draw());
+
+        // Start editing the first square.
+        for (int square = 0; square < used.length; square++) {
+            if (used[square]) {
+                moveEditor(square);
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param row The row.
+     * @param col The column.
+     * @return The index of the square in the per-square arrays.
+     */
+    private int index(int row, int col) {
+        return row * rowSize + col;
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return getMinWidth();
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return getMinHeight();
+    }
+
+    /**
+     * Sizes the squares to fit the board, centres the canvas and places the
+     * text field over the square being edited. The canvas is only redrawn if
+     * the size of the squares has changed.
+     */
+    @Override
+    protected void layoutChildren() {
+        Insets insets = getInsets();
+        double width = getWidth() - insets.getLeft() - insets.getRight();
+        double height = getHeight() - insets.getTop() - insets.getBottom();
+        double newDimension = Math.max(0, Math.min(width / rowSize, height / colSize));
+
+        canvas.relocate(insets.getLeft() + (width - newDimension * rowSize) / 2, insets.getTop() + (height - newDimension * colSize) / 2);
+        if (newDimension != dimension) {
+            dimension = newDimension;
+            canvas.setWidth(dimension * rowSize);
+            canvas.setHeight(dimension * colSize);
+            updateFonts();
+            draw();
+        }
+
+        // The text field is half the size of the square, in its centre.
+        if (editing >= 0) {
+            double x = canvas.getLayoutX() + (editing % rowSize) * dimension + dimension / 4;
+            double y = canvas.getLayoutY() + (editing / rowSize) * dimension + dimension / 4;
+            editor.resizeRelocate(x, y, dimension / 2, dimension / 2);
+        }
+    }
+
+    /**
+     * Draws every square.
+     */
+    private void draw() {
+        if (dimension <= 0) return;
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int square = 0; square < used.length; square++) {
+            drawSquare(gc, square);
+        }
+    }
+
+    /**
+     * Draws a single square, e.g. after its digit or colour has changed.
+     *
+     * @param square The index of the square.
+     */
+    private void drawSquare(int square) {
+        if (dimension <= 0) return;
+        drawSquare(canvas.getGraphicsContext2D(), square);
+    }
+
+    /**
+     * Draws a single square: its background and border, a text field shaped
+     * box with its digit, and its question number if a question starts there.
+     *
+     * @param gc The graphics context of the canvas.
+     * @param square The index of the square.
+     */
+    private void drawSquare(GraphicsContext gc, int square) {
+        double x = (square % rowSize) * dimension;
+        double y = (square / rowSize) * dimension;
+
+        // Draw the background and border.
+        gc.setGlobalAlpha(1);
+        gc.setFill(used[square] ? USED_COLOUR : UNUSED_COLOUR);
+        gc.fillRect(x, y, dimension, dimension);
+        gc.setStroke(BORDER_COLOUR);
+        gc.setLineWidth(1);
+        gc.strokeRect(x + 0.5, y + 0.5, dimension - 1, dimension - 1);
+        if (!used[square]) return;
+
+        // Draw the question number in the top left corner.
+        if (numbers[square] != 0) {
+            gc.setFill(Color.BLACK);
+            gc.setFont(numberFont);
+            gc.setTextAlign(TextAlignment.LEFT);
+            gc.setTextBaseline(VPos.TOP);
+            gc.fillText(Integer.toString(numbers[square]), x + 1 + SQUARE_PADDING, y + 1 + SQUARE_PADDING);
+        }
+
+        // The square being edited is covered by the text field.
+        if (square == editing) return;
+
+        // Draw the box and the digit.
+        if (isDisabled()) gc.setGlobalAlpha(DISABLED_OPACITY);
+        double fieldSize = dimension / 2;
+        gc.setFill(USED_COLOUR);
+        gc.fillRoundRect(x + dimension / 4, y + dimension / 4, fieldSize, fieldSize, 6, 6);
+        gc.setStroke(FIELD_BORDER_COLOUR);
+        gc.strokeRoundRect(x + dimension / 4 + 0.5, y + dimension / 4 + 0.5, fieldSize - 1, fieldSize - 1, 6, 6);
+        if (digits[square] != NO_DIGIT) {
+            gc.setFill(states[square].getColour());
+            gc.setFont(digitFont.get());
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(String.valueOf(digits[square]), x + dimension / 2, y + dimension / 2);
+        }
+    }
+
+    /**
+     * Updates the fonts for the current square size. A font is only replaced
+     * if its size, rounded down to a whole number, has changed.
+     */
+    private void updateFonts() {
+        int digitSize = (int) dimension / 4;
+        int numberSize = (int) dimension / 6;
+        if (digitFont.get() == null || digitFont.get().getSize() != digitSize) digitFont.set(Font.font(FONT_FAMILY, digitSize));
+        if (numberFont == null || numberFont.getSize() != numberSize) numberFont = Font.font(FONT_FAMILY, numberSize);
+    }
+
+    /**
+     * Moves the text field to a square, showing that square's digit in it.
+     *
+     * @param square The index of the square.
+     */
+    private void moveEditor(int square) {
+        int previous = editing;
+        editing = square;
+        movingEditor = true;
+        editor.setText(digits[square] == NO_DIGIT ? "" : String.valueOf(digits[square]));
+        movingEditor = false;
+        editor.setVisible(true);
+        states[square].applyTo(editor);
+        if (previous >= 0) drawSquare(previous);
+        drawSquare(square);
+        requestLayout();
+        if (onSquareFocused != null) onSquareFocused.squareFocused(square / rowSize, square % rowSize);
+    }
+
+    /**
+     * Moves the text field to the square that was clicked, if it is part of
+     * the puzzle.
+     *
+     * @param event The mouse event.
+     */
+    private void squarePressed(MouseEvent event) {
+        if (dimension <= 0) return;
+        int col = (int) (event.getX() / dimension);
+        int row = (int) (event.getY() / dimension);
+        if (row < 0 || row >= colSize || col < 0 || col >= rowSize || !used[index(row, col)]) return;
+        moveEditor(index(row, col));
+        editor.requestFocus();
+        event.consume();
+    }
+
+    /**
+     * Moves the text field with the arrow keys, to the next square in that
+     * direction that is part of the puzzle, and with tab, to the next or
+     * previous square in reading order.
+     *
+     * @param event The key event.
+     */
+    private void editorKeyPressed(KeyEvent event) {
+        int rowStep;
+        int colStep;
+        switch (event.getCode()) {
+            case UP: rowStep = -1; colStep = 0; break;
+            case DOWN: rowStep = 1; colStep = 0; break;
+            case LEFT: rowStep = 0; colStep = -1; break;
+            case RIGHT: rowStep = 0; colStep = 1; break;
+            case TAB:
+                // Look for the next or previous square in reading order.
+                int step = event.isShiftDown() ? -1 : 1;
+                for (int square = editing + step; square >= 0 && square < used.length; square += step) {
+                    if (used[square]) {
+                        moveEditor(square);
+                        event.consume();
+                        return;
+                    }
+                }
+                // Otherwise let the focus leave the board.
+                return;
+            default: return;
+        }
+
+        // Look for the next square in the direction of the arrow.
+        int row = editing / rowSize + rowStep;
+        int col = editing % rowSize + colStep;
+        while (row >= 0 && row < colSize && col >= 0 && col < rowSize) {
+            if (used[index(row, col)]) {
+                moveEditor(index(row, col));
+                break;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        event.consume();
+    }
+
+    @Override
+    public Region getNode() {
+        return this;
+    }
+
+    @Override
+    public String getText(int row, int col) {
+        char digit = digits[index(row, col)];
+        return digit == NO_DIGIT ? "" : String.valueOf(digit);
+    }
+
+    @Override
+    public void setState(int row, int col, AnswerState state) {
+        int square = index(row, col);
+        if (states[square] == state) return;
+        states[square] = state;
+        if (square == editing) state.applyTo(editor);
+        else drawSquare(square);
+    }
+
+    @Override
+    public void setOnSquareFocused(SquareListener listener) {
+        onSquareFocused = listener;
+    }
+
+}
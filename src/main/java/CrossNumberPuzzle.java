@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a generated cross number puzzle: the template it was
+ * made from, the grid of digits that solves it and the questions. A puzzle is
+ * immutable and has no ties to the user interface, so it can be generated and
+ * kept without the JavaFX toolkit running.
+ */
+public class CrossNumberPuzzle {
+
+    private final PuzzleId id;
+    private final RealMain.Difficulty difficulty;
+    private final PuzzleTemplate template;
+    private final PuzzleGrid solution;
+    private final List<CrossNumberPuzzleQuestion> questions;
+
+    /**
+     * Creates a new puzzle. The solution grid and the question list are copied.
+     *
+     * @param id The ID the puzzle can be regenerated from, or null if it has none.
+     * @param difficulty The difficulty the puzzle was generated for.
+     * @param template The template the puzzle was generated from.
+     * @param solution The filled out grid, containing the answers.
+     * @param questions The questions.
+     */
+    public CrossNumberPuzzle(PuzzleId id, RealMain.Difficulty difficulty, PuzzleTemplate template, PuzzleGrid solution, List<CrossNumberPuzzleQuestion> questions) {
+        this.id = id;
+        this.difficulty = difficulty;
+        this.template = template;
+        this.solution = solution.copy();
+        this.questions = Collections.unmodifiableList(new ArrayList<>(questions));
+    }
+
+    /**
+     * Creates a new puzzle, taking over the given question array rather than
+     * copying it. Only used by the generator, which no longer touches the array.
+     *
+     * @param id The ID the puzzle can be regenerated from, or null if it has none.
+     * @param difficulty The difficulty the puzzle was generated for.
+     * @param template The template the puzzle was generated from.
+     * @param solution The filled out grid, containing the answers.
+     * @param questions The questions.
+     */
+    CrossNumberPuzzle(PuzzleId id, RealMain.Difficulty difficulty, PuzzleTemplate template, PuzzleGrid solution, CrossNumberPuzzleQuestion[] questions) {
+        this.id = id;
+        this.difficulty = difficulty;
+        this.template = template;
+        this.solution = solution.copy();
+        this.questions = Collections.unmodifiableList(Arrays.asList(questions));
+    }
+
+    /**
+     * @return The ID the puzzle can be regenerated from, or null if it has none.
+     */
+    public PuzzleId getId() {
+        return id;
+    }
+
+    /**
+     * @return The difficulty the puzzle was generated for.
+     */
+    public RealMain.Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * @return The template the puzzle was generated from.
+     */
+    public PuzzleTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return The list of questions. The list cannot be modified.
+     */
+    public List<CrossNumberPuzzleQuestion> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * @return The column size i.e. the number of rows
+     */
+    public int getColSize() {return template.getColSize();}
+
+    /**
+     * @return The row size i.e. the number of columns
+     */
+    public int getRowSize() {return template.getRowSize();}
+
+    /**
+     * Returns a character from the specified row and column from the puzzle
+     * template.
+     *
+     * @return The character at the specified row and column from the puzzle template.
+     * @param row The row the character is at.
+     * @param col The col the character is at.
+     */
+    public char getCharAt(int row, int col) {return template.getCharAt(row, col);}
+
+    /**
+     * Returns a character from the specified row and column from the solution.
+     *
+     * @return The digit at the specified row and column as a character, or '-' if the square is not used.
+     * @param row The row the character is at.
+     * @param col The col the character is at.
+     */
+    public char getDigitAt(int row, int col) {return solution.getDigitAt(row, col);}
+
+    /**
+     * @return A copy of the solution grid. The copy is cheap until it is changed.
+     */
+    public PuzzleGrid getSolution() {
+        return solution.copy();
+    }
+
+}
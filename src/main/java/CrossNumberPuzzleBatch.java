@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class generates large batches of cross number puzzles, e.g. for printing
+ * worksheets. The work is spread across all cores using fork/join. Each task
+ * gets its own source of randomness, split off from a single master seed in a
+ * fixed pattern, so the same master seed always gives the same puzzles no
+ * matter how many threads take part. Each puzzle is generated from its own
+ * seed, so puzzles made from numbered templates get an ID and can be
+ * regenerated on their own later.
+ */
+public class CrossNumberPuzzleBatch {
+
+    // The number of puzzles a task generates itself rather than splitting further.
+    private static final int THRESHOLD = 64;
+
+    private CrossNumberPuzzleBatch() {}
+
+    /**
+     * Generates a batch of puzzles using the common fork/join pool.
+     *
+     * @param difficulty The difficulty.
+     * @param templates The templates to pick from. Each puzzle uses one of them, picked at random.
+     * @param count The number of puzzles to generate.
+     * @param masterSeed The seed from which all the randomness is derived.
+     * @return The puzzles, in a list that cannot be modified.
+     */
+    public static List<CrossNumberPuzzle> generate(RealMain.Difficulty difficulty, List<PuzzleTemplate> templates, int count, long masterSeed) {
+        return generate(difficulty, templates, count, masterSeed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a batch of puzzles using the given fork/join pool.
+     *
+     * @param difficulty The difficulty.
+     * @param templates The templates to pick from. Each puzzle uses one of them, picked at random.
+     * @param count The number of puzzles to generate.
+     * @param masterSeed The seed from which all the randomness is derived.
+     * @param pool The pool to run the generation in.
+     * @return The puzzles, in a list that cannot be modified.
+     */
+    public static List<CrossNumberPuzzle> generate(RealMain.Difficulty difficulty, List<PuzzleTemplate> templates, int count, long masterSeed, ForkJoinPool pool) {
+        if (templates.isEmpty()) throw new IllegalArgumentException("At least one template is needed to generate puzzles!");
+        if (count < 0) throw new IllegalArgumentException("The number of puzzles cannot be negative!");
+
+        CrossNumberPuzzle[] puzzles = new CrossNumberPuzzle[count];
+        PuzzleTemplate[] templateArray = templates.toArray(new PuzzleTemplate[0]);
+        pool.invoke(new GenerateTask(difficulty, templateArray, puzzles, 0, count, new SplittableRandom(masterSeed)));
+        return Collections.unmodifiableList(Arrays.asList(puzzles));
+    }
+
+    /**
+     * Generates the puzzles in the range [from, to) of the batch. Large ranges
+     * are split in half. The left half always gets a split of this task's
+     * source of randomness and the right half keeps it, so the randomness each
+     * puzzle gets depends only on its index and the master seed.
+     */
+    private static class GenerateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RealMain.Difficulty difficulty;
+        private final PuzzleTemplate[] templates;
+        private final CrossNumberPuzzle[] puzzles;
+        private final int from;
+        private final int to;
+        private final SplittableRandom rand;
+
+        GenerateTask(RealMain.Difficulty difficulty, PuzzleTemplate[] templates, CrossNumberPuzzle[] puzzles, int from, int to, SplittableRandom rand) {
+            this.difficulty = difficulty;
+            this.templates = templates;
+            this.puzzles = puzzles;
+            this.from = from;
+            this.to = to;
+            this.rand = rand;
+        }
+
+        @Override
+        protected void compute() {
+            // Small enough; generate the puzzles here.
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    PuzzleTemplate template = templates[rand.nextInt(templates.length)];
+                    puzzles[i] = CrossNumberPuzzleGenerator.generate(difficulty, template, rand.nextInt());
+                }
+            }
+            // Otherwise split the range in half.
+            else {
+                int mid = (from + to) >>> 1;
+                GenerateTask left = new GenerateTask(difficulty, templates, puzzles, from, mid, rand.split());
+                GenerateTask right = new GenerateTask(difficulty, templates, puzzles, mid, to, rand);
+                invokeAll(left, right);
+            }
+        }
+    }
+
+}
@@ -1,6 +1,10 @@
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Random;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class handles the mechanics of the Cross Number Puzzle game.
@@ -8,89 +12,85 @@ import java.util.Random;
 public class CrossNumberPuzzleGame {
 
     private final boolean TESTING = false;
-    private final Random rand = new Random();
     private final CrossNumberPuzzleWindow gameWindow;
     private final RealMain.Difficulty difficulty;
-    private char[][] puzzleTemplate;
-    private char[][] puzzleArray;
-    private int colSize;
-    private int rowSize;
-    private final ArrayList<CrossNumberPuzzleQuestion> questions = new ArrayList<>();
+    private final CrossNumberPuzzle puzzle;
+    private final AnswerTracker answers;
     private final long startTime = System.currentTimeMillis();
     private long timeElapsed;   // in seconds
     private int mistakesMade = 0;
     private int score;
-    private static ArrayList<Highscore> highscores;
 
     /*
-        This code block attempts to load the highscore file. If it is
-        successful, it will load the highscores into the arraylist. If it is
-        unsuccessful, it will create a new highscore file and load an empty
-        arraylist.
+        The highscores are loaded in the background, the first time they are
+        needed, so loading this class does no I/O. The store, leaderboard and
+        writer are only created then too.
      */
-    static {
-        // Try reading the highscore file.
-        try {
-            FileInputStream fin = new FileInputStream(RealMain.getBasePathForClass(RealMain.class) + File.separator + "CNP-highscores.dat");
-            ObjectInputStream ois = new ObjectInputStream(fin);
-            //noinspection unchecked
-            highscores = (ArrayList<Highscore>) ois.readObject();
-            ois.close();
-        }
-        // If it does not exist, create a new highscore file.
-        catch (FileNotFoundException fNFE) {
-            highscores = new ArrayList<>();
+    private static class HighscoresHolder {
+        static final HighscoreStore STORE = new HighscoreStore(
+                Paths.get(RealMain.getBasePathForClass(RealMain.class) + File.separator + "CNP-highscores.bin"),
+                Paths.get(RealMain.getBasePathForClass(RealMain.class) + File.separator + "CNP-highscores.dat"));
+        static final Leaderboard LEADERBOARD = new Leaderboard(CrossNumberPuzzleScoring.HIGHSCORES_PER_DIFFICULTY);
+        static final HighscoreWriter WRITER = new HighscoreWriter(STORE, LEADERBOARD);
+        static final CompletableFuture<Leaderboard> HIGHSCORES = CompletableFuture.supplyAsync(HighscoresHolder::load, BackgroundExecutor.get());
+        // The classroom leaderboard server, or null if none is set.
+        static final LeaderboardClient SERVER = LeaderboardClient.fromSystemProperty();
+
+        /**
+         * Loads the highscores from the highscore file, adding every saved
+         * highscore to the leaderboard in the order they were saved. If there
+         * is no file yet, the highscores of the old serialized file are moved
+         * into a new one. If neither exists, or the file cannot be read, the
+         * leaderboard starts empty.
+         *
+         * @return The leaderboard.
+         */
+        private static Leaderboard load() {
             try {
-                FileOutputStream fileOutStream = new FileOutputStream(RealMain.getBasePathForClass(RealMain.class) + File.separator + "CNP-highscores.dat");
-                ObjectOutputStream objectOutStream = new ObjectOutputStream(fileOutStream);
-                objectOutStream.writeObject(highscores);
-                objectOutStream.close();
+                for (Highscore hs : STORE.load()) {
+                    LEADERBOARD.add(hs);
+                }
             }
             catch (Exception e) {
                 //noinspection CallToPrintStackTrace
                 e.printStackTrace();
             }
-        }
-        catch (Exception e) {
-            //noinspection CallToPrintStackTrace
-            e.printStackTrace();
+            return LEADERBOARD;
         }
     }
 
     /**
-     * Creates a new cross number puzzle.
+     * Creates a game for an already generated cross number puzzle.
      */
-    public CrossNumberPuzzleGame(CrossNumberPuzzleWindow gameWindow, RealMain.Difficulty difficulty) {
-        this.difficulty = difficulty;
+    public CrossNumberPuzzleGame(CrossNumberPuzzleWindow gameWindow, CrossNumberPuzzle puzzle) {
+        this.difficulty = puzzle.getDifficulty();
         this.gameWindow = gameWindow;
-
-        createPuzzleTemplate();
-        createPuzzleArray();
-        fillPuzzleArray();
-        createQuestions();
+        this.puzzle = puzzle;
+        this.answers = new AnswerTracker(puzzle);
 
         if (TESTING) {
+            System.out.println("Puzzle ID: " + puzzle.getId());
             System.out.println("Arrays:");
             System.out.println();
-            printArray(puzzleTemplate);
-            printArray(puzzleArray);
+            printArray(true);
+            printArray(false);
 
             System.out.println("Questions:");
-            for (CrossNumberPuzzleQuestion question : questions) {
+            for (CrossNumberPuzzleQuestion question : puzzle.getQuestions()) {
                 System.out.println(question);
             }
         }
     }
 
     /**
-     * Prints out a 2D char array to the console.
+     * Prints out the puzzle template or the puzzle array to the console.
      *
-     * @param arr The 2D char array to be printed.
+     * @param template True to print the template, false to print the filled out puzzle array.
      */
-    private void printArray(char[][] arr) {
-        for (int row = 0; row < colSize; row++) {
-            for (int col = 0; col < rowSize; col++) {
-                System.out.print(arr[row][col] + " ");
+    private void printArray(boolean template) {
+        for (int row = 0; row < getColSize(); row++) {
+            for (int col = 0; col < getRowSize(); col++) {
+                System.out.print((template ? getCharAt(row, col) : getDigitAt(row, col)) + " ");
             }
             System.out.println();
         }
@@ -98,364 +98,71 @@ public class CrossNumberPuzzleGame {
     }
 
     /**
-     * Picks a random file from the given directory and returns it.
+     * Takes a new puzzle from the puzzle pool, generating one if none is
+     * ready.
      *
-     * @param path The path to the directory.
-     * @return A file from the directory, picked at random.
-     */
-    private File getRandomFile(String path) {
-        // File to return.
-        File randomFile;
-
-        // Directory to look in.
-        File dir = new File(RealMain.getBasePathForClass(RealMain.class) + File.separator + path);
-        if (TESTING) System.out.println(dir.getAbsolutePath());
-
-        // Array of files inside directory.
-        File[] files = dir.listFiles();
-        assert files != null;
-
-        // Pick one of the files randomly.
-        randomFile = files[new Random().nextInt(files.length)];
-
-        // Return it.
-        return randomFile;
-    }
-
-    /**
-     * Randomly selects one of the puzzle template from the template folder and
-     * creates a 2D array of it.
-     */
-    private void createPuzzleTemplate() {
-        // Pick one of the puzzles at random.
-        String diff = difficulty.name().toLowerCase();
-        File puzzleFile = getRandomFile(RealMain.PUZZLE_FOLDER + File.separator + diff);
-        BufferedReader reader = null;
-
-        // Read the puzzle from file.
-        try {
-            // Get the column size i.e. the number of rows.
-            reader = new BufferedReader(new FileReader(puzzleFile));
-            colSize = 0;
-            while (reader.readLine() != null) colSize++;
-            reader.close();
-
-            // Get the row size i.e. the number of columns.
-            reader = new BufferedReader(new FileReader(puzzleFile));
-            rowSize = reader.readLine().replaceAll("\\s", "").length();
-            reader.close();
-
-            // Create a 2D array representing the puzzle.
-            int row = 0;    // row counter
-            int col = 0;    // column counter
-            puzzleTemplate = new char[colSize][rowSize];
-            reader = new BufferedReader(new FileReader(puzzleFile));
-            int currentCharInt;    // the character is initially an integer
-
-            while ((currentCharInt = reader.read()) != -1) {
-                char currentChar = (char) currentCharInt;  // cast the integer to a character
-
-                // If the character is a space, skip it.
-                if (Character.isWhitespace(currentChar)) continue;
-
-                // Otherwise add the character to the array.
-                puzzleTemplate[row][col] = currentChar;
-
-                // Increase the column counter, check for overflow and
-                // potentially reset the column counter and increase the row
-                // counter.
-                col++;
-                if (col >= rowSize) {
-                    col = 0;
-                    row++;
-                }
-            }
-
-            reader.close();
-        }
-        catch (IOException e) {
-            //noinspection CallToPrintStackTrace
-            e.printStackTrace();
-        }
-        // Close the reader
-        finally {
-            try {
-                if (reader != null)  {
-                    reader.close();
-                }
-            }
-            catch (IOException ex) {
-                //noinspection CallToPrintStackTrace
-                ex.printStackTrace();
-            }
-        }
-    }
-
-    /**
-     * Copies the puzzle template into a new array. This new array will then be
-     * filled out.
-     */
-    private void createPuzzleArray() {
-        puzzleArray = new char[colSize][rowSize];
-        for (int row = 0; row < colSize; row++) {
-            System.arraycopy(puzzleTemplate[row], 0, puzzleArray[row], 0, rowSize);
-        }
-    }
-
-    /**
-     * Fills the puzzle array with random numbers.
+     * @param difficulty The difficulty.
+     * @return The puzzle.
      */
-    private void fillPuzzleArray() {
-        for (int row = 0; row < colSize; row++) {
-            for (int col = 0; col < rowSize; col++) {
-                char currentChar = puzzleArray[row][col];
-
-                // If the char is 'B' or 'A', then this square is the start of a number going across.
-                if (currentChar == 'B' || currentChar == 'A') {
-                    fill(true, row, col);
-                }
-
-                // If the char is 'B' or 'D', then this square is the start of a number going downwards.
-                if (currentChar == 'B' || currentChar == 'D') {
-                    fill(false, row, col);
-                }
-            }
-        }
+    public static CrossNumberPuzzle newPuzzle(RealMain.Difficulty difficulty) {
+        return PuzzlePool.shared().take(difficulty);
     }
 
     /**
-     * Fills the array with random numbers going across or down until it hits an
-     * empty square, marked by the char '-'. If it comes across a special
-     * character while doing so, it resolves it first via a recursive method
-     * call. The very first digit is never a zero.
+     * Generates the puzzle with the given ID, or takes it from the puzzle
+     * cache if it was generated before.
      *
-     * @param across True if going across, false if going down.
-     * @param row The current row.
-     * @param col The current col.
+     * @param id The ID of the puzzle.
+     * @param template The puzzle template needed by the puzzle, see {@link #findPuzzleTemplate(PuzzleId)}.
+     * @return The puzzle.
      */
-    private void fill(boolean across, int row, int col) {
-        char currentChar = puzzleArray[row][col];
-        boolean firstDigit = true;
-
-        while (currentChar != '-') {
-            // We don't want the start of a number to be a zero. So the very first digit of a number is a special case.
-            if (firstDigit) {
-                puzzleArray[row][col] = (char) (rand.nextInt(9) + 1 + '0');
-                firstDigit = false;
-            }
-            // We only change the character if it is not already a number.
-            else if (!Character.isDigit(currentChar)) {
-                puzzleArray[row][col] = (char) (rand.nextInt(10) + '0');
-            }
-
-            // Increase row or col and check if out of bounds.
-            if (across) {
-                col++;
-                if (col >= rowSize) break;
-            }
-            else {
-                row++;
-                if (row >= colSize) break;
-            }
-
-            // Move to the next character.
-            currentChar = puzzleArray[row][col];
-
-            // If the next character is a special character, sort it out first via a recursive method call.
-            if (currentChar == 'A') {
-                fill(true, row, col);
-            }
-            else if (currentChar == 'D') {
-                fill (false, row, col);
-            }
-
-            // This is necessary as the character may have changed as a result of the if statement above.
-            currentChar = puzzleArray[row][col];
-        }
+    public static CrossNumberPuzzle generatePuzzle(PuzzleId id, PuzzleTemplate template) {
+        return PuzzleCache.shared().get(id, puzzleId -> CrossNumberPuzzleGenerator.generate(puzzleId, template));
     }
 
     /**
-     * Creates questions using the puzzle template and puzzle array.
-     */
-    private void createQuestions() {
-        int counter = 1;
-        for (int row = 0; row < colSize; row++) {
-            for (int col = 0; col < rowSize; col++) {
-                // templateChar is the character from the template array. It is
-                // used to check for special characters.
-                char templateChar = puzzleTemplate[row][col];
-
-                // If the char is 'B' or 'A', then this square is the start of a
-                // number going across.
-                if (templateChar == 'B' || templateChar == 'A') {
-                    // Get the answer.
-                    int answer = Integer.parseInt(readAnswer(true, row, col));
-
-                    // Pick an operator.
-                    char operator = ' ';
-                    while (operator == ' ') {
-                        int randomNumber = rand.nextInt(4);
-                        if (randomNumber == 0) operator = '+';
-                        if (randomNumber == 1) operator = '-';
-                        if (randomNumber == 2) operator = '/';
-                        // If the number is prime, the operator cannot be multiplication.
-                        if (randomNumber == 3 && !isPrime(answer)) operator = 'x';
-                    }
-
-                    // Create the operands.
-                    int[] operands = createOperands(answer, operator);
-                    int operand1 = operands[0];
-                    int operand2 = operands[1];
-
-                    // Create the question and add it to the list.
-                    questions.add(new CrossNumberPuzzleQuestion(counter, true, answer, operator, operand1, operand2));
-                }
-
-                // If the char is 'B' or 'D', then this square is the start of a
-                // number going downwards.
-                if (templateChar == 'B' || templateChar == 'D') {
-                    // Get the answer.
-                    int answer = Integer.parseInt(readAnswer(false, row, col));
-
-                    // Pick an operator.
-                    char operator = ' ';
-                    while (operator == ' ') {
-                        int randomNumber = rand.nextInt(4);
-                        if (randomNumber == 0) operator = '+';
-                        if (randomNumber == 1) operator = '-';
-                        if (randomNumber == 2) operator = '/';
-                        // If the answer is prime, the operator cannot be multiplication.
-                        if (randomNumber == 3 && !isPrime(answer)) operator = 'x';
-                    }
-
-                    // Create the operands.
-                    int[] operands = createOperands(answer, operator);
-                    int operand1 = operands[0];
-                    int operand2 = operands[1];
-
-                    // Create the question and add it to the list.
-                    questions.add(new CrossNumberPuzzleQuestion(counter, false, answer, operator, operand1, operand2));
-                }
-                // Increment the counter if a question was created.
-                if (templateChar == 'B' || templateChar == 'A' || templateChar == 'D') counter++;
-            }
-        }
-    }
-
-    /**
-     * Reads the puzzle array for answers.
+     * Finds the puzzle template needed by the puzzle with the given ID.
      *
-     * @param across True if the answer is going across, false if going down.
-     * @param row The row where the answer begins.
-     * @param col THe column where the answer begins.
-     * @return The answer.
+     * @param id The ID of the puzzle.
+     * @return The puzzle template.
+     * @throws IllegalArgumentException If there is no such template.
      */
-    private String readAnswer(boolean across, int row, int col) {
-        // arrayChar is the character from the puzzle array, i.e. it is a digit.
-        char arrayChar = puzzleArray[row][col];
-        // Answer will be the whole number
-        StringBuilder answer = new StringBuilder();
-
-        while (arrayChar != '-') {
-            // Add the digit to the answer.
-            answer.append(arrayChar);
-
-            // Increase either row or col and check if out of bounds.
-            if (across) {
-                col++;
-                if (col >= rowSize) break;
-            }
-            else {
-                row++;
-                if (row >= colSize) break;
-            }
-
-            // Go to the next char.
-            arrayChar = puzzleArray[row][col];
-        }
-
-        return answer.toString();
+    public static PuzzleTemplate findPuzzleTemplate(PuzzleId id) {
+        PuzzleTemplate template = PuzzleTemplateRegistry.getDefault().getTemplate(id.getDifficulty(), id.getTemplateNumber());
+        if (template == null) throw new IllegalArgumentException("There is no template for puzzle " + id);
+        return template;
     }
 
     /**
-     * Checks if a number is prime.
-     *
-     * @param number The number to be checked.
-     * @return True if the number is prime, false otherwise.
+     * @return The generated puzzle.
      */
-    @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private boolean isPrime(int number) {
-        boolean prime = true;
-
-        for(int i = 2; i <= number/2; ++i) {
-            if (number % i == 0) {
-                prime = false;
-                break;
-            }
-        }
-
-        return prime;
+    public CrossNumberPuzzle getPuzzle() {
+        return puzzle;
     }
 
     /**
-     * Creates the two operands that, when used with the operator, result in the answer.
-     *
-     * @param answer The answer.
-     * @param operator The operator.
-     * @return Two operands that give the answer when the operator is applied.
+     * @return The tracker for the digits the user has entered.
      */
-    private int[] createOperands(int answer, char operator) {
-        int[] operands = new int[2];
-
-        if (operator == '+') {
-            operands[0] = rand.nextInt(answer - 1) + 1;
-            operands[1] = answer - operands[0];
-        }
-
-        if (operator == '-') {
-            operands[1] = rand.nextInt(1000) + 1;
-            operands[0] = answer + operands[1];
-        }
-
-        if (operator == '/') {
-            if (difficulty == RealMain.Difficulty.EASY) {
-                operands[1] = rand.nextInt(8) + 2;
-            }
-            else if (difficulty == RealMain.Difficulty.HARD) {
-                operands[1] = rand.nextInt(98) + 2;
-            }
-            else System.out.println("Something went wrong creating operands for division!");
-            operands[0] = answer * operands[1];
-        }
-
-        if (operator == 'x') {
-            ArrayList<Integer> factors = new ArrayList<>();
-            for (int i = 2; i <= answer / 2; i++) {
-                if (answer % i == 0) factors.add(i);
-            }
-            operands[0] = factors.get(rand.nextInt(factors.size()));
-            operands[1] = answer / operands[0];
-        }
-
-        return operands;
+    public AnswerTracker getAnswers() {
+        return answers;
     }
 
     /**
      * @return The list of questions.
      */
-    public ArrayList<CrossNumberPuzzleQuestion> getQuestions() {
-        return questions;
+    public List<CrossNumberPuzzleQuestion> getQuestions() {
+        return puzzle.getQuestions();
     }
 
     /**
      * @return The column size i.e. the number of rows
      */
-    public int getColSize() {return colSize;}
+    public int getColSize() {return puzzle.getColSize();}
 
     /**
      * @return The row size i.e. the number of columns
      */
-    public int getRowSize() {return rowSize;}
+    public int getRowSize() {return puzzle.getRowSize();}
 
     /**
      * Returns a character from the specified row and column from the puzzle
@@ -465,7 +172,7 @@ public class CrossNumberPuzzleGame {
      * @param row The row the character is at.
      * @param col The col the character is at.
      */
-    public char getCharAt(int row, int col) {return puzzleTemplate[row][col];}
+    public char getCharAt(int row, int col) {return puzzle.getCharAt(row, col);}
 
     /**
      * Returns a character from the specified row and column from the puzzle array.
@@ -474,7 +181,7 @@ public class CrossNumberPuzzleGame {
      * @param row The row the character is at.
      * @param col The col the character is at.
      */
-    public char getDigitAt(int row, int col) {return puzzleArray[row][col];}
+    public char getDigitAt(int row, int col) {return puzzle.getDigitAt(row, col);}
 
     /**
      * Increases the mistakes made counter
@@ -483,6 +190,15 @@ public class CrossNumberPuzzleGame {
         mistakesMade++;
     }
 
+    /**
+     * Increases the mistakes made counter by more than one.
+     *
+     * @param mistakes The number of mistakes made.
+     */
+    public void mistakesMade(int mistakes) {
+        mistakesMade += mistakes;
+    }
+
     /**
      * @return The number of mistakes made during the game.
      */
@@ -509,11 +225,7 @@ public class CrossNumberPuzzleGame {
      * Calculates the score for the game.
      */
     private int calculateScore() {
-        int timeScore = Math.round(10000f / (1 + getTimeElapsed()));
-        int mistakesScore = Math.round(100f / (1 + getMistakesMade()));
-        int score = timeScore + mistakesScore;
-        if (difficulty == RealMain.Difficulty.HARD) score *= 10;
-        return score;
+        return CrossNumberPuzzleScoring.calculateScore(difficulty, getTimeElapsed(), getMistakesMade());
     }
 
     /**
@@ -525,61 +237,51 @@ public class CrossNumberPuzzleGame {
 
     /**
      * Checks if the score for this game is a new highscore. If so, it adds it
-     * to the highscore leaderboard.
+     * to the highscore leaderboard. This is done on the JavaFX application
+     * thread once the highscores have loaded, as the player may be asked for
+     * their name. If there is a classroom leaderboard server, new highscores
+     * are sent to it too.
      */
     public void checkHighscores() {
-        // Count the number of highscores for the current difficulty
-        int counter = 0;
-        for (Highscore hs : highscores) {
-            if (hs.getDifficulty() == difficulty) counter++;
-        }
-
-        // If there are less than 5 high scores, score immediately qualifies.
-        if (counter < 5) {
-            String userName = gameWindow.getHighscoreName();
-            highscores.add(new Highscore(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, userName, score));
+        HighscoresHolder.HIGHSCORES.thenAcceptAsync(leaderboard -> {
+            Highscore highscore = CrossNumberPuzzleScoring.addHighscore(leaderboard, difficulty, score, gameWindow::getHighscoreName);
+            if (highscore == null) return;
+            // Save the highscore to file in the background.
+            HighscoresHolder.WRITER.save(highscore);
+            if (HighscoresHolder.SERVER != null) submitToServer(HighscoresHolder.SERVER, highscore);
+        }, Platform::runLater);
+    }
 
-            // Sort the list
-            highscores.sort((hs1, hs2) -> Integer.compare(hs2.getScore(), hs1.getScore()));
-        }
-        // Otherwise we need to check if the score is greater than the current highscores.
-        else {
-            for (Highscore hs : highscores) {
-                if (hs.getDifficulty() == difficulty) {
-                    if (score > hs.getScore()) {
-                        highscores.remove(hs);
-                        String userName = gameWindow.getHighscoreName();
-                        highscores.add(new Highscore(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, userName, score));
-                        break;
-                    }
-                }
+    /**
+     * Sends a highscore to the classroom leaderboard server in the background.
+     * The game carries on if the server cannot be reached.
+     *
+     * @param server The server.
+     * @param highscore The highscore.
+     */
+    private static void submitToServer(LeaderboardClient server, Highscore highscore) {
+        BackgroundExecutor.get().execute(() -> {
+            try {
+                server.submit(highscore);
             }
-
-            // Sort the list
-            highscores.sort((hs1, hs2) -> Integer.compare(hs2.getScore(), hs1.getScore()));
-        }
-
-        // Finally we need to save the highscores to file
-        try {
-            FileOutputStream fileOutStream = new FileOutputStream(RealMain.getBasePathForClass(RealMain.class) + File.separator + "CNP-highscores.dat");
-            ObjectOutputStream objectOutStream = new ObjectOutputStream(fileOutStream);
-            objectOutStream.writeObject(highscores);
-            objectOutStream.close();
-        }
-        catch (Exception e) {
-            //noinspection CallToPrintStackTrace
-            e.printStackTrace();
-        }
+            catch (IOException e) {
+                //noinspection CallToPrintStackTrace
+                e.printStackTrace();
+            }
+        });
     }
 
     /**
-     * @return A list of highscores.
+     * Starts loading the highscores in the background, if they are not loaded
+     * or loading already.
+     *
+     * @return The highscore leaderboard, once it has loaded.
      */
     // DO NOT DELETE this method, despite seeming unused, it is in fact used by
     // DifficultyWindow.
     @SuppressWarnings("unused")
-    public static ArrayList<Highscore> getHighscores() {
-        return highscores;
+    public static CompletableFuture<Leaderboard> getHighscores() {
+        return HighscoresHolder.HIGHSCORES;
     }
 
     /**
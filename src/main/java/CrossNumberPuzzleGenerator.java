@@ -0,0 +1,336 @@
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class generates cross number puzzles. Given a difficulty and a template,
+ * it fills the template with random numbers and creates the questions. It does
+ * not depend on the user interface, so puzzles can be generated without the
+ * JavaFX toolkit running, e.g. on a server.
+ */
+public class CrossNumberPuzzleGenerator {
+
+    // The longest answer worked out with longs. Answers this long still fit in
+    // a long once multiplied by the biggest divisor.
+    private static final int MAX_LONG_DIGITS = 16;
+
+    private final SplittableRandom rand;
+    private final RealMain.Difficulty difficulty;
+    private final NumberTables numberTables;
+    private final PuzzleTemplate template;
+    private final PuzzleSlots slots;
+    private final CrossNumberPuzzleQuestion[] questions;
+    private PuzzleGrid puzzleArray;
+
+    /**
+     * Creates a generator for a single puzzle.
+     *
+     * @param difficulty The difficulty.
+     * @param template The template.
+     * @param rand The source of randomness.
+     */
+    private CrossNumberPuzzleGenerator(RealMain.Difficulty difficulty, PuzzleTemplate template, SplittableRandom rand) {
+        this.difficulty = difficulty;
+        this.numberTables = NumberTables.forDifficulty(difficulty);
+        this.template = template;
+        this.rand = rand;
+        this.slots = template.getSlots();
+        this.questions = new CrossNumberPuzzleQuestion[slots.size()];
+    }
+
+    /**
+     * Generates a new puzzle from a random seed.
+     *
+     * @param difficulty The difficulty.
+     * @param template The template to fill out.
+     * @return The generated puzzle.
+     */
+    public static CrossNumberPuzzle generate(RealMain.Difficulty difficulty, PuzzleTemplate template) {
+        return generate(difficulty, template, ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * Generates the puzzle with the given ID.
+     *
+     * @param id The ID of the puzzle.
+     * @param template The template with the number given in the ID.
+     * @return The generated puzzle.
+     */
+    public static CrossNumberPuzzle generate(PuzzleId id, PuzzleTemplate template) {
+        if (template.getNumber() != id.getTemplateNumber()) {
+            throw new IllegalArgumentException("Puzzle " + id + " needs template " + id.getTemplateNumber() + ", not " + template.getName());
+        }
+        return generate(id.getDifficulty(), template, id.getSeed());
+    }
+
+    /**
+     * Generates a new puzzle from the given seed. The same template and seed
+     * always give the same puzzle. If the template is numbered, the puzzle gets
+     * an ID from which it can be regenerated.
+     *
+     * @param difficulty The difficulty.
+     * @param template The template to fill out.
+     * @param seed The seed.
+     * @return The generated puzzle.
+     */
+    public static CrossNumberPuzzle generate(RealMain.Difficulty difficulty, PuzzleTemplate template, int seed) {
+        PuzzleId id = template.getNumber() > 0 ? new PuzzleId(difficulty, template.getNumber(), seed) : null;
+        return generate(id, difficulty, template, new SplittableRandom(seed), null);
+    }
+
+    /**
+     * Generates a new puzzle using the given source of randomness. The same
+     * template and an identically seeded source of randomness always give the
+     * same puzzle. The source of randomness must not be shared between threads;
+     * use {@link SplittableRandom#split()} to give each thread its own. The
+     * puzzle has no ID.
+     *
+     * @param difficulty The difficulty.
+     * @param template The template to fill out.
+     * @param rand The source of randomness.
+     * @return The generated puzzle.
+     */
+    public static CrossNumberPuzzle generate(RealMain.Difficulty difficulty, PuzzleTemplate template, SplittableRandom rand) {
+        return generate(null, difficulty, template, rand, null);
+    }
+
+    /**
+     * Generates a new puzzle in which every answer follows the given
+     * constraint, e.g. {@link AnswerConstraint#even()}. The same template,
+     * constraint and an identically seeded source of randomness always give the
+     * same puzzle. The puzzle has no ID.
+     *
+     * @param difficulty The difficulty.
+     * @param template The template to fill out.
+     * @param rand The source of randomness.
+     * @param constraint The rule every answer has to follow.
+     * @return The generated puzzle.
+     * @throws IllegalStateException If no grid follows the constraint, or the search gave up before finding one.
+     */
+    public static CrossNumberPuzzle generate(RealMain.Difficulty difficulty, PuzzleTemplate template, SplittableRandom rand, AnswerConstraint constraint) {
+        return generate(null, difficulty, template, rand, constraint);
+    }
+
+    /**
+     * Generates a new puzzle using the given source of randomness.
+     *
+     * @param id The ID of the puzzle, or null if it has none.
+     * @param difficulty The difficulty.
+     * @param template The template to fill out.
+     * @param rand The source of randomness.
+     * @param constraint The rule every answer has to follow, or null if there is none.
+     * @return The generated puzzle.
+     */
+    private static CrossNumberPuzzle generate(PuzzleId id, RealMain.Difficulty difficulty, PuzzleTemplate template, SplittableRandom rand, AnswerConstraint constraint) {
+        CrossNumberPuzzleGenerator generator = new CrossNumberPuzzleGenerator(difficulty, template, rand);
+        generator.fillPuzzleArray(constraint);
+        generator.createQuestions();
+        return new CrossNumberPuzzle(id, difficulty, template, generator.puzzleArray, generator.questions);
+    }
+
+    /**
+     * Creates the questions for a grid that has already been filled out. Only
+     * used to measure question creation on its own.
+     *
+     * @param difficulty The difficulty.
+     * @param template The template the grid was filled from.
+     * @param solution The filled out grid.
+     * @param rand The source of randomness.
+     * @return The questions, in slot order.
+     */
+    static CrossNumberPuzzleQuestion[] createQuestions(RealMain.Difficulty difficulty, PuzzleTemplate template, PuzzleGrid solution, SplittableRandom rand) {
+        CrossNumberPuzzleGenerator generator = new CrossNumberPuzzleGenerator(difficulty, template, rand);
+        generator.puzzleArray = solution;
+        generator.createQuestions();
+        return generator.questions;
+    }
+
+    /**
+     * Fills the template with digits, slot by slot, so that every answer
+     * follows the constraint.
+     *
+     * @param constraint The rule every answer has to follow, or null if there is none.
+     * @throws IllegalStateException If no grid follows the constraint, or the search gave up before finding one.
+     */
+    private void fillPuzzleArray(AnswerConstraint constraint) {
+        try {
+            puzzleArray = template.getSearch().fill(constraint, rand);
+        }
+        catch (IllegalStateException e) {
+            throw new IllegalStateException("Template " + template.getName() + " was not filled in time: " + e.getMessage() + "!", e);
+        }
+        if (puzzleArray == null) throw new IllegalStateException("Template " + template.getName() + " cannot be filled so every answer follows the constraint!");
+    }
+
+    /**
+     * Creates a question for every slot using the puzzle array. Answers that
+     * fit in a long, which is every answer of the usual templates, are worked
+     * out with longs and, apart from the questions themselves, allocate
+     * nothing. Only slots too long for that use big numbers.
+     */
+    private void createQuestions() {
+        for (int i = 0; i < slots.size(); i++) {
+            PuzzleSlot slot = slots.get(i);
+            if (slot.getLength() <= MAX_LONG_DIGITS) {
+                questions[i] = createQuestion(slot, readAnswer(slot));
+            }
+            else {
+                questions[i] = createBigQuestion(slot, readBigAnswer(slot));
+            }
+        }
+    }
+
+    /**
+     * Picks the operator of a question at random.
+     *
+     * @param canMultiply True if the answer can be written as a multiplication.
+     * @return The operator, i.e. '+', '-', '/' or 'x'.
+     */
+    private char pickOperator(boolean canMultiply) {
+        char operator = ' ';
+        while (operator == ' ') {
+            int randomNumber = rand.nextInt(4);
+            if (randomNumber == 0) operator = '+';
+            if (randomNumber == 1) operator = '-';
+            if (randomNumber == 2) operator = '/';
+            // If the answer is not composite, the operator cannot be multiplication.
+            if (randomNumber == 3 && canMultiply) operator = 'x';
+        }
+        return operator;
+    }
+
+    /**
+     * Creates the question for a slot whose answer fits in a long.
+     *
+     * @param slot The slot.
+     * @param answer The answer in the slot.
+     * @return The question.
+     */
+    private CrossNumberPuzzleQuestion createQuestion(PuzzleSlot slot, long answer) {
+        char operator = pickOperator(numberTables.canBeMultiplication(answer));
+
+        // Create the operands. One of them is picked at random and the other
+        // one follows from it. Answers that fit in an int use the same random
+        // numbers as they always have, so puzzle IDs keep giving the same puzzles.
+        long operand1;
+        long operand2;
+        switch (operator) {
+            case '+':
+                operand1 = (answer <= Integer.MAX_VALUE ? rand.nextInt((int) answer - 1) : rand.nextLong(answer - 1)) + 1;
+                operand2 = answer - operand1;
+                break;
+            case '-':
+                operand2 = rand.nextInt(1000) + 1;
+                operand1 = answer + operand2;
+                break;
+            case '/':
+                operand2 = createDivisor();
+                operand1 = answer * operand2;
+                break;
+            default:
+                operand1 = numberTables.randomFactor(answer, rand);
+                operand2 = answer / operand1;
+                break;
+        }
+        return new CrossNumberPuzzleQuestion(slot.getNumber(), slot.isGoingAcross(), answer, operator, operand1, operand2);
+    }
+
+    /**
+     * Creates the question for a slot whose answer is too big for a long.
+     *
+     * @param slot The slot.
+     * @param answer The answer in the slot.
+     * @return The question.
+     */
+    private CrossNumberPuzzleQuestion createBigQuestion(PuzzleSlot slot, BigInteger answer) {
+        char operator = pickOperator(numberTables.canBeMultiplication(answer));
+
+        BigInteger operand1;
+        BigInteger operand2;
+        switch (operator) {
+            case '+':
+                operand1 = randomBelow(answer.subtract(BigInteger.ONE)).add(BigInteger.ONE);
+                operand2 = answer.subtract(operand1);
+                break;
+            case '-':
+                operand2 = BigInteger.valueOf(rand.nextInt(1000) + 1);
+                operand1 = answer.add(operand2);
+                break;
+            case '/':
+                operand2 = BigInteger.valueOf(createDivisor());
+                operand1 = answer.multiply(operand2);
+                break;
+            default:
+                operand1 = numberTables.randomFactor(answer, rand);
+                operand2 = answer.divide(operand1);
+                break;
+        }
+        return new CrossNumberPuzzleQuestion(slot.getNumber(), slot.isGoingAcross(), answer, operator, operand1, operand2);
+    }
+
+    /**
+     * Reads the answer in a slot from the puzzle array, one digit at a time.
+     *
+     * @param slot The slot, at most {@value #MAX_LONG_DIGITS} long.
+     * @return The answer.
+     */
+    private long readAnswer(PuzzleSlot slot) {
+        long answer = 0;
+        for (int position = 0; position < slot.getLength(); position++) {
+            answer = answer * 10 + puzzleArray.getDigit(slot.getRowAt(position), slot.getColAt(position));
+        }
+        return answer;
+    }
+
+    /**
+     * Reads the answer in a slot that is too long for a long from the puzzle
+     * array.
+     *
+     * @param slot The slot.
+     * @return The answer.
+     */
+    private BigInteger readBigAnswer(PuzzleSlot slot) {
+        char[] digits = new char[slot.getLength()];
+        for (int position = 0; position < digits.length; position++) {
+            digits[position] = puzzleArray.getDigitAt(slot.getRowAt(position), slot.getColAt(position));
+        }
+        return new BigInteger(new String(digits));
+    }
+
+    /**
+     * Picks a random number from 0 (inclusive) to the bound (exclusive), every
+     * number being equally likely.
+     *
+     * @param bound The bound, at least 1.
+     * @return The random number.
+     */
+    private BigInteger randomBelow(BigInteger bound) {
+        int bits = bound.bitLength();
+        byte[] bytes = new byte[(bits + 7) / 8];
+        while (true) {
+            for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) rand.nextInt(256);
+            // Clear the bits above the bound's highest bit, so most tries are below it.
+            bytes[0] &= (byte) (0xFF >>> (bytes.length * 8 - bits));
+            BigInteger number = new BigInteger(1, bytes);
+            if (number.compareTo(bound) < 0) return number;
+        }
+    }
+
+    /**
+     * Creates the divisor of a division question. Easy questions only divide
+     * by a single digit.
+     *
+     * @return The divisor.
+     */
+    private int createDivisor() {
+        if (difficulty == RealMain.Difficulty.EASY) {
+            return rand.nextInt(8) + 2;
+        }
+        else if (difficulty == RealMain.Difficulty.HARD) {
+            return rand.nextInt(98) + 2;
+        }
+        System.out.println("Something went wrong creating operands for division!");
+        return 1;
+    }
+
+}
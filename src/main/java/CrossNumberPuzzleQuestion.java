@@ -1,15 +1,24 @@
+import java.math.BigInteger;
+
 /**
  * This class represents a single question in a Cross Number Puzzle. It contains
  * information about the question, such as the two operands that make up the
  * question as well as the operator used. It also stores the answer.
+ * <p>
+ * Answers can be any length. Questions whose numbers fit in a long store them
+ * as longs; only questions for very long slots use big numbers.
  */
 public class CrossNumberPuzzleQuestion {
     private final int number;
     private final boolean goingAcross;  // true if question is going across, false if going down
-    private final int answer;
+    private final long answer;
     private final char operator;
-    private final int operand1;
-    private final int operand2;
+    private final long operand1;
+    private final long operand2;
+    // The answer and operands if they are too big for a long, otherwise null.
+    private final BigInteger bigAnswer;
+    private final BigInteger bigOperand1;
+    private final BigInteger bigOperand2;
 
     /**
      * Creates a new question.
@@ -21,13 +30,38 @@ public class CrossNumberPuzzleQuestion {
      * @param operand1 The first operand.
      * @param operand2 The second operand.
      */
-    public CrossNumberPuzzleQuestion(int number, boolean goingAcross, int answer, char operator, int operand1, int operand2) {
+    public CrossNumberPuzzleQuestion(int number, boolean goingAcross, long answer, char operator, long operand1, long operand2) {
         this.number = number;
         this.goingAcross = goingAcross;
         this.answer = answer;
         this.operator = operator;
         this.operand1 = operand1;
         this.operand2 = operand2;
+        this.bigAnswer = null;
+        this.bigOperand1 = null;
+        this.bigOperand2 = null;
+    }
+
+    /**
+     * Creates a new question with numbers too big for a long.
+     *
+     * @param number The question number.
+     * @param goingAcross True if going across, false if going down.
+     * @param answer The answer of the question.
+     * @param operator The operator.
+     * @param operand1 The first operand.
+     * @param operand2 The second operand.
+     */
+    public CrossNumberPuzzleQuestion(int number, boolean goingAcross, BigInteger answer, char operator, BigInteger operand1, BigInteger operand2) {
+        this.number = number;
+        this.goingAcross = goingAcross;
+        this.answer = 0;
+        this.operator = operator;
+        this.operand1 = 0;
+        this.operand2 = 0;
+        this.bigAnswer = answer;
+        this.bigOperand1 = operand1;
+        this.bigOperand2 = operand2;
     }
 
     /**
@@ -38,7 +72,7 @@ public class CrossNumberPuzzleQuestion {
         String s = "" + number;
         if (goingAcross) s += " across: ";
         else s += " down: ";
-        s += operand1 + " " + operator + " " + operand2 + " = " + answer;
+        s += format(operand1, bigOperand1) + " " + operator + " " + format(operand2, bigOperand2) + " = " + format(answer, bigAnswer);
         return s;
     }
 
@@ -56,14 +90,30 @@ public class CrossNumberPuzzleQuestion {
         if (number >= 10) s += ".    ";
         else s += ".      ";
 
-        s += operand1 + " " + operator + " " + operand2 + " = ";
+        s += format(operand1, bigOperand1) + " " + operator + " " + format(operand2, bigOperand2) + " = ";
 
-        if (includeAnswer) s += answer;
+        if (includeAnswer) s += format(answer, bigAnswer);
         else s += " ?";
 
         return s;
     }
 
+    /**
+     * @param value A number that fits in a long.
+     * @param bigValue The same number if it does not fit in a long, otherwise null.
+     * @return The number in string form.
+     */
+    private static String format(long value, BigInteger bigValue) {
+        return bigValue == null ? Long.toString(value) : bigValue.toString();
+    }
+
+    /**
+     * @return The question number.
+     */
+    public int getNumber() {
+        return number;
+    }
+
     /**
      * @return True if the question is going across, false if going down.
      */
@@ -71,4 +121,32 @@ public class CrossNumberPuzzleQuestion {
         return goingAcross;
     }
 
+    /**
+     * @return The operator, i.e. '+', '-', 'x' or '/'.
+     */
+    public char getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return The answer of the question.
+     */
+    public BigInteger getAnswer() {
+        return bigAnswer == null ? BigInteger.valueOf(answer) : bigAnswer;
+    }
+
+    /**
+     * @return The first operand.
+     */
+    public BigInteger getOperand1() {
+        return bigOperand1 == null ? BigInteger.valueOf(operand1) : bigOperand1;
+    }
+
+    /**
+     * @return The second operand.
+     */
+    public BigInteger getOperand2() {
+        return bigOperand2 == null ? BigInteger.valueOf(operand2) : bigOperand2;
+    }
+
 }
@@ -0,0 +1,49 @@
+import java.util.function.Supplier;
+
+/**
+ * This class holds the scoring rules of the Cross Number Puzzle game: how a
+ * score is calculated and when it makes the highscore leaderboard. It has no
+ * ties to the user interface or the highscore file, so the rules can be used
+ * and measured on their own.
+ */
+public class CrossNumberPuzzleScoring {
+
+    // The number of highscores kept for each difficulty.
+    public static final int HIGHSCORES_PER_DIFFICULTY = 5;
+
+    private CrossNumberPuzzleScoring() {}
+
+    /**
+     * Calculates the score for a game.
+     *
+     * @param difficulty The difficulty of the game.
+     * @param timeElapsed The time taken, in seconds.
+     * @param mistakesMade The number of mistakes made.
+     * @return The score.
+     */
+    public static int calculateScore(RealMain.Difficulty difficulty, long timeElapsed, int mistakesMade) {
+        int timeScore = Math.round(10000f / (1 + timeElapsed));
+        int mistakesScore = Math.round(100f / (1 + mistakesMade));
+        int score = timeScore + mistakesScore;
+        if (difficulty == RealMain.Difficulty.HARD) score *= 10;
+        return score;
+    }
+
+    /**
+     * Adds a score to the highscores if it is a new highscore for its
+     * difficulty. The player is only asked for their name if it is. When the
+     * leaderboard is full, the lowest highscore makes way for it.
+     *
+     * @param highscores The highscores of every difficulty.
+     * @param difficulty The difficulty of the game.
+     * @param score The score.
+     * @param playerName Asks the player for their name.
+     * @return The new highscore, or null if the score is not a new highscore.
+     */
+    public static Highscore addHighscore(Leaderboard highscores, RealMain.Difficulty difficulty, int score, Supplier<String> playerName) {
+        if (!highscores.qualifies(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, score)) return null;
+        Highscore highscore = new Highscore(RealMain.GameType.CROSS_NUMBER_PUZZLE, difficulty, playerName.get(), score);
+        return highscores.add(highscore) ? highscore : null;
+    }
+
+}
@@ -1,6 +1,7 @@
-import javafx.beans.binding.Bindings;
-import javafx.beans.binding.NumberBinding;
-import javafx.beans.value.ChangeListener;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.css.PseudoClass;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
@@ -11,6 +12,11 @@ import javafx.scene.layout.*;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -20,27 +26,88 @@ import java.util.concurrent.atomic.AtomicReference;
 public class CrossNumberPuzzleWindow extends HBox {
 
     private final boolean TESTING = false;
-    private final CrossNumberPuzzleGame game;
-    private GridPane puzzleGrid;
-    private TextField[][] textFields;
-    private StyleHelper textFieldsHelper;
+    private CrossNumberPuzzleGame game;
+    private PuzzleBoard board;
+    private ListView<Clue> clueList;
+    // The position of each question in the clue list, by question number and direction.
+    private final Map<Integer, Integer> clueIndices = new HashMap<>();
     private Label outcomeLbl;
     private Label timeTakenLbl;
     private Label mistakesMadeLbl;
     private Label scoreLbl;
-    private StyleHelper outcomeHelper;
 
     /**
-     * Creates a cross number puzzle window and all its contents.
+     * Creates a cross number puzzle window. The puzzle is generated in the
+     * background, and the window's contents are created once it is ready.
      */
     public CrossNumberPuzzleWindow(RealMain.Difficulty difficulty) {
+        load(CompletableFuture.supplyAsync(() -> CrossNumberPuzzleGame.newPuzzle(difficulty), BackgroundExecutor.get()));
+    }
+
+    /**
+     * Creates a cross number puzzle window for the puzzle with the given ID.
+     * The puzzle is generated in the background, and the window's contents are
+     * created once it is ready.
+     *
+     * @throws IllegalArgumentException If there is no template for the ID.
+     */
+    public CrossNumberPuzzleWindow(PuzzleId id) {
+        // Find the template now, so a bad ID is reported straight away.
+        PuzzleTemplate template = CrossNumberPuzzleGame.findPuzzleTemplate(id);
+        load(CompletableFuture.supplyAsync(() -> CrossNumberPuzzleGame.generatePuzzle(id, template), BackgroundExecutor.get()));
+    }
+
+    /**
+     * Shows a loading message until the puzzle is ready, then creates the game
+     * and the contents of the window on the JavaFX application thread.
+     *
+     * @param puzzle The puzzle being generated.
+     */
+    private void load(CompletableFuture<CrossNumberPuzzle> puzzle) {
         this.setPadding(new Insets(10));
 
-        // Create the game.
-        game = new CrossNumberPuzzleGame(this, difficulty);
+        // Create the loading message.
+        VBox loadingBox = new VBox(10);
+        loadingBox.getStyleClass().add("puzzle-loading-box");
+        loadingBox.setAlignment(Pos.CENTER);
+        setHgrow(loadingBox, Priority.ALWAYS);
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        Label loadingLbl = new Label("Generating puzzle...");
+        loadingLbl.getStyleClass().add("puzzle-loading-label");
+        loadingBox.getChildren().addAll(progressIndicator, loadingLbl);
+        this.getChildren().add(loadingBox);
+
+        puzzle.whenCompleteAsync((generatedPuzzle, throwable) -> {
+            // If the puzzle could not be generated, say so and offer a way back.
+            if (throwable != null) {
+                //noinspection CallToPrintStackTrace
+                throwable.printStackTrace();
+                loadingBox.getChildren().remove(progressIndicator);
+                loadingLbl.setText("The puzzle could not be generated!");
+                Button backBtn = new Button("Back");
+                backBtn.getStyleClass().add("puzzle-button");
+                backBtn.setOnAction(this::back);
+                loadingBox.getChildren().add(backBtn);
+                return;
+            }
+
+            // Create the game and replace the loading message with the puzzle.
+            game = new CrossNumberPuzzleGame(this, generatedPuzzle);
+            this.getChildren().clear();
+            createContents();
+        }, Platform::runLater);
+    }
+
+    /**
+     * Creates the contents of the window.
+     */
+    private void createContents() {
+        this.setPadding(new Insets(10));
 
         // Create the puzzle grid.
-        createPuzzleGrid();
+        board = PuzzleBoard.create(game);
+        setHgrow(board.getNode(), Priority.ALWAYS);
+        this.getChildren().add(board.getNode());
 
         // Create a separator between the grid and the questions and buttons.
         Separator separator = new Separator();
@@ -52,145 +119,6 @@ public class CrossNumberPuzzleWindow extends HBox {
         createQuestionsAndButtonsPane();
     }
 
-    /**
-     * Creates the puzzle grid and all its components.
-     */
-    private void createPuzzleGrid() {
-        // Create the puzzle grid and set its properties.
-        puzzleGrid = new GridPane();
-        puzzleGrid.setMinWidth(RealMain.minWindowWidth / 2 - 20);
-        puzzleGrid.setMinHeight(RealMain.minWindowHeight - 20);
-        puzzleGrid.setPadding(new Insets(5));
-        puzzleGrid.setAlignment(Pos.CENTER);
-        setHgrow(puzzleGrid, Priority.ALWAYS);
-        this.getChildren().add(puzzleGrid);
-
-        // Get the column and row sizes.
-        int rowSize = game.getRowSize();
-        int colSize = game.getColSize();
-
-        // Find the minimum dimension the square can be. This is for the minimum
-        // window size and does not change.
-        final double minDimension = Math.min((puzzleGrid.getMinWidth() / rowSize), (puzzleGrid.getMinHeight() / colSize));
-
-        // Find the variable dimension of the square. This dimension is used
-        // when the window is resized.
-        NumberBinding varDimensionBinding = Bindings.min(puzzleGrid.widthProperty().divide(rowSize), puzzleGrid.heightProperty().divide(colSize));
-
-        // Set the row constraints.
-        RowConstraints rc = new RowConstraints(minDimension, minDimension, Double.MAX_VALUE);
-        rc.maxHeightProperty().bind(varDimensionBinding);   // bind the maximum height property to the variable dimension binding
-        rc.setVgrow(Priority.ALWAYS);   // ensure the row takes up any extra space
-        // Add the row constraint to all the rows.
-        for (int row = 0; row < colSize; row++) {
-            puzzleGrid.getRowConstraints().add(rc);
-        }
-
-        // Set the column constraints.
-        ColumnConstraints cc = new ColumnConstraints(minDimension, minDimension, Double.MAX_VALUE);
-        cc.maxWidthProperty().bind(varDimensionBinding);    // bind the maximum width property to the variable dimension binding.
-        cc.setHgrow(Priority.ALWAYS);   // ensure the column takes up any extra space.
-        // Add the column constraint to all the columns.
-        for (int col = 0; col < rowSize; col++) {
-            puzzleGrid.getColumnConstraints().add(cc);
-        }
-
-        // Create puzzle grid contents.
-        textFields = new TextField[colSize][rowSize];   // array for the text fields.
-        textFieldsHelper = new StyleHelper();   // helper for setting styles
-        int counter = 1;    // counter for question number
-
-        // Iterate through the puzzle grid.
-        for (int row = 0; row < colSize; row++) {
-            for (int col = 0; col < rowSize; col++) {
-                // Create the square.
-                StackPane square = new StackPane();
-                square.setPadding(new Insets(3));
-                puzzleGrid.add(square, col, row);
-
-                // Squares which are not part of the puzzle.
-                if (game.getCharAt(row, col) == '-') {
-                    square.getStyleClass().add("puzzle-square-unused");
-                }
-                // Squares which are part of the puzzle.
-                else {
-                    square.getStyleClass().add("puzzle-square-used");
-                    // Create the text field.
-                    TextField textField = new TextField();
-                    textField.getStyleClass().add("puzzle-square-text-field");
-                    textField.setAlignment(Pos.CENTER);
-                    textFields[row][col] = textField;
-                    StackPane.setAlignment(textField, Pos.CENTER);
-                    square.getChildren().add(textField);
-
-                    // Bind the dimensions of the text field to half o the dimensions of the square.
-                    textField.maxHeightProperty().bind(varDimensionBinding.divide(2.0));
-                    textField.maxWidthProperty().bind(varDimensionBinding.divide(2.0));
-
-                    // Scale the text size with the square size.
-                    square.heightProperty().addListener((observable, oldValue, newValue) -> {
-                        textFieldsHelper.replaceStyles(textField.getStyle());
-                        textFieldsHelper.addStyle("-fx-font-size: " + (newValue.intValue() / 4));
-                        textField.setStyle(textFieldsHelper.getStyle());
-                        textField.applyCss();
-                    });
-
-                    // Set constraints on the contents of the text field.
-                    textField.textProperty().addListener((observable, oldValue, newValue) -> {
-                        // Reset the text field back to black as the value may have changed.
-                        textFieldsHelper.replaceStyles(textField.getStyle());
-                        textFieldsHelper.addStyle("-fx-text-fill: black");
-                        textField.setStyle(textFieldsHelper.getStyle());
-                        textField.applyCss();
-
-                        // Ensure the text field can only contain one character.
-                        if (newValue.length() > 1) {
-                            textField.setText(oldValue);
-                        }
-
-                        // Ensure the text field can only contain numbers.
-                        if (!newValue.matches("[0-9]+")) {
-                            if (!newValue.isEmpty()) {
-                                textField.setText(oldValue);
-                            }
-                        }
-                    });
-                }
-
-                // Squares which are the start of questions.
-                if (game.getCharAt(row, col) == 'B' || game.getCharAt(row, col) == 'A' || game.getCharAt(row, col) == 'D') {
-                    Label numLbl = new Label("" + counter);
-                    numLbl.getStyleClass().add("puzzle-square-number-label");
-                    StackPane.setAlignment(numLbl, Pos.TOP_LEFT);
-                    square.getChildren().add(numLbl);
-                    counter++;
-
-                    // Scale the text size with the square size.
-                    square.heightProperty().addListener((observable, oldValue, newValue) -> {
-                        numLbl.setStyle("-fx-font-size: " + (newValue.intValue() / 6) + ";");
-                        numLbl.applyCss();
-                    });
-                }
-            }
-        }
-
-        // Testing info
-        if (TESTING) {
-            puzzleGrid.setStyle("-fx-border-color: pink;");
-
-            ChangeListener<Number> stageSizeListener = (observable, oldValue, newValue) -> {
-                System.out.println("Height: " + puzzleGrid.getHeight() + " Width: " + puzzleGrid.getWidth());
-                System.out.println("Min height dimension: " + (puzzleGrid.getHeight() / colSize));
-                System.out.println("Min width dimension: " + (puzzleGrid.getWidth() / rowSize));
-                System.out.println("Min dimension: " + minDimension);
-                System.out.println("Var dimension: " + varDimensionBinding.doubleValue());
-                System.out.println("\n");
-            };
-            puzzleGrid.widthProperty().addListener(stageSizeListener);
-            puzzleGrid.heightProperty().addListener(stageSizeListener);
-        }
-    }
-
     /**
      * Creates the pane for questions and buttons as well as all its contents.
      */
@@ -201,63 +129,32 @@ public class CrossNumberPuzzleWindow extends HBox {
         interfacePane.setPadding(new Insets(5, 5, 5, 5));
         this.getChildren().add(interfacePane);
 
-        // Create the scrollpane for the questions.
-        ScrollPane questionScrollPane = new ScrollPane();
-        questionScrollPane.getStyleClass().add("puzzle-scrollpane");
-        questionScrollPane.setFitToWidth(true);
-        interfacePane.setCenter(questionScrollPane);
-
-        // Create the box for the questions.
-        VBox questionBox = new VBox();
-        questionScrollPane.setContent(questionBox);
-
-        // Create the across heading label.
-        Label acrossLabel = new Label("Going across: ");
-        acrossLabel.getStyleClass().add("puzzle-heading-label");
-        acrossLabel.setPadding(new Insets(0, 0, 5, 0));
-        StackPane centredAcrossLabelPane = new StackPane(acrossLabel);
-        centredAcrossLabelPane.setAlignment(Pos.CENTER);
-        questionBox.getChildren().add(centredAcrossLabelPane);
-
-        // Create the across question labels.
-        for (CrossNumberPuzzleQuestion question : game.getQuestions()) {
-            if (question.isGoingAcross()) {
-                Label questionLabel;
-                questionLabel = new Label(question.getQuestion(TESTING));
-                questionLabel.getStyleClass().add("puzzle-question-label");
-                questionLabel.setPadding(new Insets(5, 0, 0, 15));
-                questionBox.getChildren().add(questionLabel);
-            }
-        }
+        // Create the list of questions. Only the visible rows get a cell, and
+        // cells are reused while scrolling.
+        clueList = new ListView<>(createClues());
+        clueList.getStyleClass().add("puzzle-clue-list");
+        clueList.setFocusTraversable(false);
+        clueList.setCellFactory(listView -> new ClueCell());
+        interfacePane.setCenter(clueList);
 
-        // Create the down heading label.
-        Label downLabel = new Label("Going down: ");
-        downLabel.getStyleClass().add("puzzle-heading-label");
-        downLabel.setPadding(new Insets(5, 0, 5, 0));
-        StackPane centeredDownLabelPane = new StackPane(downLabel);
-        centeredDownLabelPane.setAlignment(Pos.CENTER);
-        questionBox.getChildren().add(centeredDownLabelPane);
-
-        // Create the down question labels.
-        for (CrossNumberPuzzleQuestion question : game.getQuestions()) {
-            if (!question.isGoingAcross()) {
-                Label questionLabel;
-                questionLabel = new Label(question.getQuestion(TESTING));
-                questionLabel.getStyleClass().add("puzzle-question-label");
-                questionLabel.setPadding(new Insets(5, 0, 0, 15));
-                questionBox.getChildren().add(questionLabel);
-            }
-        }
+        // Show the question for the square the user moves to.
+        board.setOnSquareFocused(this::showClue);
 
         // Create the box to hold the outcome label, stats and buttons.
         VBox bottomBox = new VBox();
         bottomBox.setAlignment(Pos.CENTER);
         interfacePane.setBottom(bottomBox);
 
+        // Create the puzzle ID label, so the same puzzle can be handed out again.
+        if (game.getPuzzle().getId() != null) {
+            Label puzzleIdLbl = new Label("Puzzle ID: " + game.getPuzzle().getId());
+            puzzleIdLbl.getStyleClass().add("puzzle-id-label");
+            bottomBox.getChildren().add(puzzleIdLbl);
+        }
+
         // Create the outcome label.
         outcomeLbl = new Label();
         outcomeLbl.getStyleClass().add("outcome-label");
-        outcomeHelper = new StyleHelper(outcomeLbl.getStyle());
         bottomBox.getChildren().add(outcomeLbl);
 
         // Create the time taken label.
@@ -307,12 +204,76 @@ public class CrossNumberPuzzleWindow extends HBox {
         // Border control
         if (TESTING) {
             interfacePane.setStyle("-fx-border-color: black;");
-            questionBox.setStyle("-fx-border-color: green;");
+            clueList.setStyle("-fx-border-color: green;");
             bottomBox.setStyle("-fx-border-color: brown;");
             buttonBox.setStyle("-fx-border-color: green;");
         }
     }
 
+    /**
+     * Creates the items of the clue list: a heading and the questions going
+     * across, then a heading and the questions going down. The text of every
+     * item is worked out here, once.
+     *
+     * @return The items.
+     */
+    private ObservableList<Clue> createClues() {
+        List<Clue> acrossClues = new ArrayList<>();
+        List<Clue> downClues = new ArrayList<>();
+        List<Integer> downKeys = new ArrayList<>();
+        for (CrossNumberPuzzleQuestion question : game.getQuestions()) {
+            Clue clue = new Clue(question.getQuestion(TESTING), false);
+            if (question.isGoingAcross()) {
+                // Across questions come after the across heading.
+                clueIndices.put(clueKey(question.getNumber(), true), 1 + acrossClues.size());
+                acrossClues.add(clue);
+            }
+            else {
+                downKeys.add(clueKey(question.getNumber(), false));
+                downClues.add(clue);
+            }
+        }
+        // Down questions come after the across questions and the down heading.
+        for (int i = 0; i < downKeys.size(); i++) {
+            clueIndices.put(downKeys.get(i), 2 + acrossClues.size() + i);
+        }
+
+        ObservableList<Clue> clues = FXCollections.observableArrayList();
+        clues.add(new Clue("Going across: ", true));
+        clues.addAll(acrossClues);
+        clues.add(new Clue("Going down: ", true));
+        clues.addAll(downClues);
+        return clues;
+    }
+
+    /**
+     * @param number The question number.
+     * @param goingAcross True if the question is going across, false if going down.
+     * @return The key of the question in the clue indices.
+     */
+    private static int clueKey(int number, boolean goingAcross) {
+        return number * 2 + (goingAcross ? 1 : 0);
+    }
+
+    /**
+     * Selects and scrolls to the question for a square: the question going
+     * across through it if there is one, otherwise the one going down.
+     *
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     */
+    private void showClue(int row, int col) {
+        PuzzleSlots slots = game.getPuzzle().getTemplate().getSlots();
+        int slot = slots.getAcrossSlotAt(row, col);
+        if (slot == -1) slot = slots.getDownSlotAt(row, col);
+        if (slot == -1) return;
+
+        Integer index = clueIndices.get(clueKey(slots.get(slot).getNumber(), slots.get(slot).isGoingAcross()));
+        if (index == null) return;
+        clueList.getSelectionModel().select(index);
+        clueList.scrollTo(Math.max(0, index - 1));
+    }
+
     /**
      * Moves back to the maths window.
      *
@@ -339,45 +300,20 @@ public class CrossNumberPuzzleWindow extends HBox {
      * @param event The mouse events
      */
     private void submit(ActionEvent event) {
-        // Compare the contents of the text field array to the puzzle array from
-        // the game, which contains the answers.
-        boolean incorrectSquares = false;
-        boolean emptySquares = false;
-        for (int row = 0; row < game.getColSize(); row++) {
-            for (int col = 0; col < game.getRowSize(); col++) {
-                // Get the current text field.
-                TextField currentField = textFields[row][col];
-
-                // If the current field is null, then the square is not part of
-                // the puzzle; we can skip comparing it.
-                if (currentField == null) continue;
-
-                // If the field is empty, set emptySquares to true.
-                if (currentField.getText().isEmpty()) {
-                    emptySquares = true;
-                }
-                // If the field has the correct character, change its colour to green.
-                else if (currentField.getText().charAt(0) == game.getDigitAt(row, col))  {
-                    textFieldsHelper.replaceStyles(currentField.getStyle());
-                    textFieldsHelper.addStyle("-fx-text-fill: #00cc00");
-                    currentField.setStyle(textFieldsHelper.getStyle());
-                    currentField.applyCss();
-                }
-                // Otherwise the field has an incorrect character; change its
-                // colour to red and set incorrectSquares to true.
-                else {
-                    incorrectSquares = true;
-                    game.mistakeMade();
-                    textFieldsHelper.replaceStyles(currentField.getStyle());
-                    textFieldsHelper.addStyle("-fx-text-fill: orangered");
-                    currentField.setStyle(textFieldsHelper.getStyle());
-                    currentField.applyCss();
-                }
+        // Colour the squares changed since the last submit. Squares which have
+        // not changed keep their colour, and empty squares are neutral already.
+        AnswerTracker answers = game.getAnswers();
+        answers.visitChangedSquares((row, col) -> {
+            if (answers.hasDigit(row, col)) {
+                board.setState(row, col, answers.isCorrect(row, col) ? AnswerState.CORRECT : AnswerState.WRONG);
             }
-        }
+        });
+
+        // Every incorrect square counts as a mistake.
+        game.mistakesMade(answers.getWrongSquares());
 
         // Check the outcome.
-        if (!incorrectSquares && !emptySquares) {
+        if (answers.isSolved()) {
             // Signal the end of the game.
             game.end();
 
@@ -386,18 +322,13 @@ public class CrossNumberPuzzleWindow extends HBox {
 
             // Set labels
             outcomeLbl.setText("Well done!");
-            outcomeHelper.addStyle("-fx-text-fill: #00cc00");
-            outcomeLbl.setStyle(outcomeHelper.getStyle());
+            AnswerState.CORRECT.applyTo(outcomeLbl);
             timeTakenLbl.setText("Time taken: " + game.getTimeElapsed() + " seconds");
             mistakesMadeLbl.setText("Mistakes made: " + game.getMistakesMade());
             scoreLbl.setText("Score: " + game.getScore());
 
-            // Disable text fields.
-            for (int row = 0; row < game.getColSize(); row++) {
-                for (int col = 0; col < game.getRowSize(); col++) {
-                    if (textFields[row][col] != null) textFields[row][col].setDisable(true);
-                }
-            }
+            // Disable the puzzle grid.
+            board.getNode().setDisable(true);
 
             // Disable submit button.
             Button submitBtn = (Button) event.getSource();
@@ -406,20 +337,53 @@ public class CrossNumberPuzzleWindow extends HBox {
             // Check highscores
             game.checkHighscores();
         }
-        else if (emptySquares) {
+        else if (!answers.isComplete()) {
             outcomeLbl.setText("Puzzle incomplete!");
-            outcomeHelper.addStyle("-fx-text-fill: -fx-text-color");
-            outcomeLbl.setStyle(outcomeHelper.getStyle());
+            AnswerState.NEUTRAL.applyTo(outcomeLbl);
         }
-        else //noinspection ConstantValue
-            if (incorrectSquares) {
+        else {
             outcomeLbl.setText("Try again!");
-            outcomeHelper.addStyle("-fx-text-fill: orangered");
-            outcomeLbl.setStyle(outcomeHelper.getStyle());
+            AnswerState.WRONG.applyTo(outcomeLbl);
             RealMain.playSound("failure-sound.wav");
         }
     }
 
+    /**
+     * An item of the clue list: a heading or a question.
+     */
+    private static class Clue {
+        private final String text;
+        private final boolean heading;
+
+        /**
+         * @param text The text shown in the list.
+         * @param heading True if the item is a heading, false if it is a question.
+         */
+        Clue(String text, boolean heading) {
+            this.text = text;
+            this.heading = heading;
+        }
+    }
+
+    /**
+     * A cell of the clue list. Cells are reused for different items while
+     * scrolling, so headings are told apart by a pseudo-class rather than a
+     * style class of their own.
+     */
+    private static class ClueCell extends ListCell<Clue> {
+        private static final PseudoClass HEADING = PseudoClass.getPseudoClass("heading");
+
+        @Override
+        protected void updateItem(Clue clue, boolean empty) {
+            super.updateItem(clue, empty);
+            boolean heading = !empty && clue != null && clue.heading;
+            setText(empty || clue == null ? null : clue.text);
+            pseudoClassStateChanged(HEADING, heading);
+            // Headings cannot be selected.
+            setMouseTransparent(heading);
+        }
+    }
+
     /**
      * Creates a popup window, informing the user they have achieved a new
      * highscore and asking them for their name.
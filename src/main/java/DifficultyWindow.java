@@ -1,4 +1,5 @@
 
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
@@ -6,6 +7,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
@@ -17,6 +19,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This window allows you to choose the difficulty setting for any game.
@@ -106,6 +110,20 @@ public class DifficultyWindow extends BorderPane {
         buttonBox.getChildren().add(hardBtn);
         menuButtons.add(hardBtn);
 
+        // Create the button for playing a puzzle from its ID, if the game supports it.
+        if (supportsPuzzleIds()) {
+            Button puzzleIdBtn = new Button("Puzzle ID");
+            puzzleIdBtn.getStyleClass().add("menu-button");
+            puzzleIdBtn.setMinWidth(RealMain.initialMenuButtonWidth);
+            puzzleIdBtn.setMinHeight(RealMain.initialMenuButtonHeight);
+            puzzleIdBtn.setMaxWidth(RealMain.initialMenuButtonWidth);
+            puzzleIdBtn.setFont(new Font(RealMain.initialMenuButtonFontSize));
+            puzzleIdBtn.setWrapText(true);
+            puzzleIdBtn.setOnAction(this::enterPuzzleId);
+            buttonBox.getChildren().add(puzzleIdBtn);
+            menuButtons.add(puzzleIdBtn);
+        }
+
         // Create the back button.
         Button backBtn = new Button("Back");
         backBtn.getStyleClass().add("menu-button");
@@ -156,6 +174,101 @@ public class DifficultyWindow extends BorderPane {
         this.widthProperty().addListener(sizeListener);
     }
 
+    /**
+     * @return True if the game window can be created from a puzzle ID, false otherwise.
+     */
+    private boolean supportsPuzzleIds() {
+        try {
+            gameType.getWindowClass().getConstructor(PuzzleId.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method is called as a result of pressing the Puzzle ID button. It
+     * opens up a popup window asking for a puzzle ID and then starts that
+     * puzzle.
+     *
+     * @param actionEvent The action event that caused this method to be called.
+     */
+    private void enterPuzzleId(ActionEvent actionEvent) {
+        Stage newStage = new Stage();
+        newStage.setTitle("Puzzle ID");
+        newStage.initModality(Modality.APPLICATION_MODAL);  // ensures popup must be closed before continuing
+        newStage.setResizable(false);
+
+        BorderPane root = new BorderPane();
+        root.setPadding(new Insets(10));
+        root.setMaxSize(RealMain.minWindowWidth - 50, RealMain.minWindowHeight - 50);
+
+        VBox box = new VBox();
+        box.setSpacing(10);
+        box.setAlignment(Pos.CENTER);
+        root.setCenter(box);
+
+        Label titleLbl = new Label("Play a puzzle from its ID");
+        titleLbl.getStyleClass().add("highscore-title-label");
+        titleLbl.setWrapText(true);
+        box.getChildren().add(titleLbl);
+
+        Label textLbl = new Label("Please enter the puzzle ID below, e.g. H3-1Z8KQ4:");
+        textLbl.getStyleClass().add("highscore-monospace-label");
+        textLbl.setWrapText(true);
+        box.getChildren().add(textLbl);
+
+        TextField idField = new TextField();
+        idField.getStyleClass().add("highscore-text-field");
+        box.getChildren().add(idField);
+
+        Label errorLbl = new Label();
+        errorLbl.getStyleClass().add("highscore-monospace-label");
+        errorLbl.setWrapText(true);
+        box.getChildren().add(errorLbl);
+
+        Button playBtn = new Button("Play");
+        playBtn.getStyleClass().add("puzzle-button");
+        playBtn.setDefaultButton(true);
+        playBtn.setOnAction(value -> {
+            PuzzleId id;
+            try {
+                id = PuzzleId.parse(idField.getText());
+            } catch (IllegalArgumentException e) {
+                errorLbl.setText("That is not a valid puzzle ID!");
+                return;
+            }
+
+            try {
+                // Get the constructor of the game window class.
+                Constructor<?> cons = gameType.getWindowClass().getConstructor(PuzzleId.class);
+                // Create the game object.
+                Object o = cons.newInstance(id);
+                // Change the window.
+                newStage.close();
+                this.getScene().setRoot((Pane) o);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof IllegalArgumentException) {
+                    // The ID was valid, but there is no such puzzle on this machine.
+                    errorLbl.setText("Puzzle " + id + " could not be found!");
+                }
+                else {
+                    //noinspection CallToPrintStackTrace
+                    e.getCause().printStackTrace();
+                }
+            } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+                //noinspection CallToPrintStackTrace
+                e.printStackTrace();
+            }
+        });
+        box.getChildren().add(playBtn);
+
+        Scene stageScene = new Scene(root);
+        stageScene.getStylesheets().add("stylesheet.css");
+        newStage.setScene(stageScene);
+        newStage.showAndWait();
+    }
+
     /**
      * This method is called as a result of pressing the View Highscores button.
      * It opens up a popup window with the highscores for the selected game.
@@ -164,18 +277,28 @@ public class DifficultyWindow extends BorderPane {
      */
     private void viewHighscores(ActionEvent actionEvent) {
         // Get the highscores.
-        ArrayList<Highscore> highscores = null;
+        CompletableFuture<Leaderboard> highscores = null;
         try {
             Class<?> gameClass = gameType.getGameClass();
             Method method = gameClass.getMethod("getHighscores");
             //noinspection unchecked
-            highscores = (ArrayList<Highscore>) method.invoke(null);
+            highscores = (CompletableFuture<Leaderboard>) method.invoke(null);
         } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException exception) {
             //noinspection CallToPrintStackTrace
             exception.printStackTrace();
         }
         assert highscores != null;
 
+        // Show them once they have loaded.
+        highscores.thenAcceptAsync(this::showHighscores, Platform::runLater);
+    }
+
+    /**
+     * Creates a popup window showing the highscores for each difficulty.
+     *
+     * @param highscores The highscore leaderboard.
+     */
+    private void showHighscores(Leaderboard highscores) {
         // Create the window
         Stage newStage = new Stage();
         newStage.setTitle("Highscores");
@@ -202,17 +325,14 @@ public class DifficultyWindow extends BorderPane {
             diffLbl.setWrapText(true);
             box.getChildren().add(diffLbl);
 
-            boolean noHighscores = true;
-            for (Highscore hs : highscores) {
-                if (hs.getDifficulty() == difficulty) {
-                    noHighscores = false;
-                    Label hsLbl = new Label(hs.toString());
-                    hsLbl.getStyleClass().add("highscore-monospace-label");
-                    hsLbl.setWrapText(true);
-                    box.getChildren().add(hsLbl);
-                }
+            List<Highscore> difficultyHighscores = highscores.get(gameType, difficulty);
+            for (Highscore hs : difficultyHighscores) {
+                Label hsLbl = new Label(hs.toString());
+                hsLbl.getStyleClass().add("highscore-monospace-label");
+                hsLbl.setWrapText(true);
+                box.getChildren().add(hsLbl);
             }
-            if (noHighscores) box.getChildren().remove(diffLbl);
+            if (difficultyHighscores.isEmpty()) box.getChildren().remove(diffLbl);
         }
 
         Scene stageScene = new Scene(root);
@@ -24,6 +24,13 @@ public class Highscore implements Serializable {
         this.score = score;
     }
 
+    /**
+     * @return The type of game
+     */
+    public RealMain.GameType getGameType() {
+        return gameType;
+    }
+
     /**
      * @return The difficulty
      */
@@ -31,6 +38,13 @@ public class Highscore implements Serializable {
         return difficulty;
     }
 
+    /**
+     * @return The name of the player
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
     /**
      * @return The score
      */
@@ -0,0 +1,248 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class stores highscores in a compact binary file. The file starts with
+ * a header giving its format version, followed by one fixed-size record per
+ * highscore. New highscores are appended to the end, so saving one writes a
+ * single record, and once the file holds too many records it is compacted:
+ * rewritten to a temporary file with only the current highscores, which then
+ * replaces the old file in one atomic rename.
+ * <p>
+ * Every record has a checksum, so a record left half written by a crash is
+ * skipped when the file is loaded. Loading reads the whole file in one go and
+ * decodes the records from memory. A file that cannot be loaded at all, e.g.
+ * one written by a newer version of the game, is never overwritten: it is
+ * renamed to a backup before the file is written again.
+ * <p>
+ * The layout of the file, in big-endian order, is:
+ * <pre>
+ * header:  magic "CNPH" (4 bytes), version (2), record size (2), reserved (8)
+ * record:  game type (1), difficulty (1), name length (1), reserved (1),
+ *          score (4), name as UTF-16 chars (20), CRC-32 of the first 28 bytes (4)
+ * </pre>
+ */
+public class HighscoreStore {
+
+    private static final int MAGIC = 0x434E5048;    // "CNPH"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 32;
+    private static final int NAME_LENGTH = 10;
+    private static final int CHECKED_SIZE = RECORD_SIZE - 4;
+    // The number of records the file may hold before it is compacted.
+    private static final int COMPACTION_RECORDS = 64;
+
+    private final Path file;
+    private final Path legacyFile;
+    private int records = 0;    // the number of records in the file, including damaged ones
+    private long validLength = 0;   // the length of the file up to the end of its last whole record
+    private boolean loadFailed = false; // the file could not be loaded, so it must be kept before writing
+
+    /**
+     * Creates a store for a highscore file. Nothing is read until the
+     * highscores are loaded.
+     *
+     * @param file The binary highscore file.
+     * @param legacyFile The highscore file of older versions, written with Java serialization, or null if there is none.
+     */
+    public HighscoreStore(Path file, Path legacyFile) {
+        this.file = file;
+        this.legacyFile = legacyFile;
+    }
+
+    /**
+     * Loads every highscore in the file, in the order they were saved. If
+     * there is no file yet but there is a legacy file, the legacy highscores
+     * are moved into a new file first.
+     *
+     * @return The highscores.
+     * @throws IOException If the file cannot be read or is not a highscore file.
+     */
+    public synchronized List<Highscore> load() throws IOException {
+        if (!Files.exists(file)) {
+            List<Highscore> highscores = legacyFile != null && Files.exists(legacyFile) ? loadLegacy() : new ArrayList<>();
+            if (!highscores.isEmpty()) compact(highscores);
+            return highscores;
+        }
+
+        List<Highscore> highscores = new ArrayList<>();
+        loadFailed = true;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Highscore file too large: " + file);
+            // The file is read into the heap rather than mapped. On Windows a
+            // mapped file cannot be truncated or replaced until the mapping is
+            // garbage collected, which would stop later saves. The file only
+            // holds a few kilobytes anyway.
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) break;
+            }
+            buffer.flip();
+            size = buffer.limit();
+            if (size < HEADER_SIZE) throw new IOException("Not a highscore file: " + file);
+
+            // Check the header.
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a highscore file: " + file);
+            short version = buffer.getShort();
+            if (version != VERSION) throw new IOException("Unknown highscore file version " + version + ": " + file);
+            if (buffer.getShort() != RECORD_SIZE) throw new IOException("Unexpected highscore record size: " + file);
+
+            // Read the whole records; a part of a record at the end is ignored.
+            records = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+            validLength = HEADER_SIZE + (long) records * RECORD_SIZE;
+            byte[] record = new byte[RECORD_SIZE];
+            for (int i = 0; i < records; i++) {
+                buffer.position(HEADER_SIZE + i * RECORD_SIZE);
+                buffer.get(record);
+                Highscore highscore = decode(record);
+                if (highscore != null) highscores.add(highscore);
+            }
+        }
+        loadFailed = false;
+        return highscores;
+    }
+
+    /**
+     * Reads the highscores from a legacy file.
+     *
+     * @return The highscores.
+     * @throws IOException If the file cannot be read.
+     */
+    private List<Highscore> loadLegacy() throws IOException {
+        try (InputStream in = Files.newInputStream(legacyFile); ObjectInputStream ois = new ObjectInputStream(in)) {
+            //noinspection unchecked
+            return new ArrayList<>((List<Highscore>) ois.readObject());
+        }
+        catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Not a highscore file: " + legacyFile, e);
+        }
+    }
+
+    /**
+     * Saves a new highscore by appending it to the file. If the file then
+     * holds too many records, it is compacted to the current highscores.
+     *
+     * @param highscore The new highscore.
+     * @param current Every current highscore, including the new one.
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized void append(Highscore highscore, Collection<Highscore> current) throws IOException {
+        // Files which have not been loaded yet, or are full, are rewritten.
+        if (validLength < HEADER_SIZE || records >= COMPACTION_RECORDS || !Files.exists(file)) {
+            compact(current);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Drop a half written record left at the end by an earlier crash.
+            if (channel.size() > validLength) channel.truncate(validLength);
+            ByteBuffer buffer = ByteBuffer.wrap(encode(highscore));
+            long position = validLength;
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+            channel.force(false);
+        }
+        records++;
+        validLength += RECORD_SIZE;
+    }
+
+    /**
+     * Rewrites the file with only the given highscores. The new file is
+     * written next to the old one and then renamed over it, so the file is
+     * never left half written. If the old file could not be loaded, it is
+     * kept as a backup instead of being replaced.
+     *
+     * @param highscores The highscores.
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized void compact(Collection<Highscore> highscores) throws IOException {
+        if (loadFailed && Files.exists(file)) {
+            Path backup = file.resolveSibling(file.getFileName() + ".bak");
+            for (int i = 1; Files.exists(backup); i++) backup = file.resolveSibling(file.getFileName() + ".bak" + i);
+            Files.move(file, backup);
+        }
+        loadFailed = false;
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + highscores.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(0);
+        for (Highscore highscore : highscores) buffer.put(encode(highscore));
+        buffer.flip();
+
+        // The temporary file gets the usual permissions, unlike one from Files.createTempFile.
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+        records = highscores.size();
+        validLength = HEADER_SIZE + (long) records * RECORD_SIZE;
+    }
+
+    /**
+     * @param highscore A highscore.
+     * @return The highscore as a record.
+     */
+    private static byte[] encode(Highscore highscore) {
+        String name = highscore.getPlayerName();
+        int nameLength = Math.min(name.length(), NAME_LENGTH);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.put((byte) highscore.getGameType().ordinal());
+        buffer.put((byte) highscore.getDifficulty().ordinal());
+        buffer.put((byte) nameLength);
+        buffer.put((byte) 0);
+        buffer.putInt(highscore.getScore());
+        for (int i = 0; i < NAME_LENGTH; i++) buffer.putChar(i < nameLength ? name.charAt(i) : ' ');
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, CHECKED_SIZE);
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * @param record A record.
+     * @return The highscore in the record, or null if the record is damaged.
+     */
+    private static Highscore decode(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, CHECKED_SIZE);
+        if (buffer.getInt(CHECKED_SIZE) != (int) crc.getValue()) return null;
+
+        int gameType = buffer.get();
+        int difficulty = buffer.get();
+        int nameLength = buffer.get();
+        buffer.get();
+        int score = buffer.getInt();
+        if (gameType < 0 || gameType >= RealMain.GameType.values().length) return null;
+        if (difficulty < 0 || difficulty >= RealMain.Difficulty.values().length) return null;
+        if (nameLength < 0 || nameLength > NAME_LENGTH) return null;
+        char[] name = new char[nameLength];
+        for (int i = 0; i < nameLength; i++) name[i] = buffer.getChar();
+        return new Highscore(RealMain.GameType.values()[gameType], RealMain.Difficulty.values()[difficulty], new String(name), score);
+    }
+
+}
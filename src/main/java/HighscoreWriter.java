@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class saves new highscores to the highscore file on a background
+ * thread, so the game never waits for the disk. Highscores go on the
+ * leaderboard straight away and are written a moment later; highscores saved
+ * close together are written in one go. Anything not yet written when the
+ * application exits is written before it does.
+ */
+public class HighscoreWriter {
+
+    // How long to wait for more highscores before writing, in milliseconds.
+    private static final long WRITE_DELAY = 200;
+    // How long to wait for a write in progress when the application exits, in seconds.
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    private final HighscoreStore store;
+    private final Leaderboard leaderboard;
+    private final ScheduledThreadPoolExecutor executor;
+    private final List<Highscore> pending = new ArrayList<>();
+    private boolean writeScheduled = false;
+
+    /**
+     * Creates a writer and makes sure it writes everything pending when the
+     * application exits.
+     *
+     * @param store The store to write to.
+     * @param leaderboard The leaderboard the highscores are added to.
+     */
+    public HighscoreWriter(HighscoreStore store, Leaderboard leaderboard) {
+        this.store = store;
+        this.leaderboard = leaderboard;
+        // A daemon thread, so the writer does not keep the application
+        // running; the shutdown hook writes whatever is left instead.
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "highscore-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Writes which have not started by the time the application exits are
+        // done by close() instead of waiting for their delay.
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "highscore-writer-shutdown"));
+    }
+
+    /**
+     * Schedules a new highscore to be written. The highscore must already be
+     * on the leaderboard.
+     *
+     * @param highscore The new highscore.
+     */
+    public void save(Highscore highscore) {
+        synchronized (this) {
+            pending.add(highscore);
+            if (writeScheduled) return;
+            writeScheduled = true;
+            try {
+                executor.schedule(this::write, WRITE_DELAY, TimeUnit.MILLISECONDS);
+                return;
+            }
+            catch (RejectedExecutionException e) {
+                // The application is exiting, so write straight away below.
+                writeScheduled = false;
+            }
+        }
+        write();
+    }
+
+    /**
+     * Writes the pending highscores. A single highscore is appended to the
+     * file. Several are written by compacting the file to the leaderboard,
+     * which already holds them, in one atomic rename.
+     */
+    private void write() {
+        List<Highscore> highscores;
+        synchronized (this) {
+            highscores = new ArrayList<>(pending);
+            pending.clear();
+            writeScheduled = false;
+        }
+        if (highscores.isEmpty()) return;
+
+        try {
+            if (highscores.size() == 1) store.append(highscores.get(0), leaderboard.getAll());
+            else store.compact(leaderboard.getAll());
+        }
+        catch (IOException e) {
+            //noinspection CallToPrintStackTrace
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the background thread, waiting for a write in progress, and then
+     * writes anything still pending.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+
+}
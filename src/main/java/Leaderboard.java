@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class holds the highscores of every game type and difficulty. Each pair
+ * of game type and difficulty has its own table of at most a fixed number of
+ * highscores, kept sorted from the highest score to the lowest. Checking
+ * whether a score qualifies only looks at the lowest score of its table, and a
+ * new highscore replaces the lowest one when the table is full. Tables are
+ * created when first needed, so new game types and difficulties need no
+ * changes here. It is safe to use from several threads.
+ */
+public class Leaderboard {
+
+    private final int capacity;
+    private final Map<RealMain.GameType, Map<RealMain.Difficulty, Table>> tables = new EnumMap<>(RealMain.GameType.class);
+
+    /*
+        The highscores of one game type and difficulty, sorted from the highest
+        score to the lowest.
+     */
+    private static class Table {
+        final Highscore[] highscores;
+        int size = 0;
+
+        Table(int capacity) {
+            highscores = new Highscore[capacity];
+        }
+    }
+
+    /**
+     * Creates an empty leaderboard.
+     *
+     * @param capacity The maximum number of highscores for each game type and difficulty.
+     */
+    public Leaderboard(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Not a valid capacity: " + capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     * @param create True to create the table if there is none.
+     * @return The table, or null if there is none and it was not created.
+     */
+    private Table getTable(RealMain.GameType gameType, RealMain.Difficulty difficulty, boolean create) {
+        Map<RealMain.Difficulty, Table> difficultyTables = tables.get(gameType);
+        if (difficultyTables == null) {
+            if (!create) return null;
+            difficultyTables = new EnumMap<>(RealMain.Difficulty.class);
+            tables.put(gameType, difficultyTables);
+        }
+        Table table = difficultyTables.get(difficulty);
+        if (table == null && create) {
+            table = new Table(capacity);
+            difficultyTables.put(difficulty, table);
+        }
+        return table;
+    }
+
+    /**
+     * Checks if a score would make the leaderboard, i.e. if there is room for
+     * it or it beats the lowest highscore.
+     *
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     * @param score The score.
+     * @return True if the score qualifies, false otherwise.
+     */
+    public synchronized boolean qualifies(RealMain.GameType gameType, RealMain.Difficulty difficulty, int score) {
+        Table table = getTable(gameType, difficulty, false);
+        return table == null || table.size < capacity || score > table.highscores[table.size - 1].getScore();
+    }
+
+    /**
+     * Adds a highscore if it qualifies. If the table is full, the lowest
+     * highscore is removed to make room. A highscore equal to others goes
+     * after them, so earlier highscores win ties.
+     *
+     * @param highscore The highscore.
+     * @return True if the highscore was added, false otherwise.
+     */
+    public synchronized boolean add(Highscore highscore) {
+        if (!qualifies(highscore.getGameType(), highscore.getDifficulty(), highscore.getScore())) return false;
+        Table table = getTable(highscore.getGameType(), highscore.getDifficulty(), true);
+
+        // Find the position after the last score at least as high, by binary search.
+        int low = 0;
+        int high = table.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (table.highscores[middle].getScore() >= highscore.getScore()) low = middle + 1;
+            else high = middle;
+        }
+
+        // Shift the lower highscores down, dropping the lowest if the table is full.
+        int end = Math.min(table.size, capacity - 1);
+        System.arraycopy(table.highscores, low, table.highscores, low + 1, end - low);
+        table.highscores[low] = highscore;
+        if (table.size < capacity) table.size++;
+        return true;
+    }
+
+    /**
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     * @return The highscores, from the highest score to the lowest, in a list that cannot be modified.
+     */
+    public synchronized List<Highscore> get(RealMain.GameType gameType, RealMain.Difficulty difficulty) {
+        Table table = getTable(gameType, difficulty, false);
+        if (table == null) return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(table.highscores, table.size)));
+    }
+
+    /**
+     * @return Every highscore, by game type and difficulty and then from the highest score to the lowest.
+     */
+    public synchronized List<Highscore> getAll() {
+        List<Highscore> all = new ArrayList<>();
+        for (Map<RealMain.Difficulty, Table> difficultyTables : tables.values()) {
+            for (Table table : difficultyTables.values()) {
+                all.addAll(Arrays.asList(table.highscores).subList(0, table.size));
+            }
+        }
+        return all;
+    }
+
+    /**
+     * @return The maximum number of highscores for each game type and difficulty.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,188 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class talks to a {@link LeaderboardServer}. The game only uses one if
+ * the system property {@value #SERVER_PROPERTY} gives the address of the
+ * server, e.g. {@code -Dleaderboard.server=http://teacher-pc:8765}; without it
+ * highscores are only kept on this machine. Every call blocks until the server
+ * answers, so the game makes them in the background.
+ */
+public class LeaderboardClient {
+
+    public static final String SERVER_PROPERTY = "leaderboard.server";
+    // How long to wait for the server, in milliseconds.
+    private static final int CONNECT_TIMEOUT = 2000;
+    private static final int READ_TIMEOUT = 5000;
+
+    private final String serverAddress;
+
+    /**
+     * @return A client for the server in the system property, or null if it is not set.
+     */
+    public static LeaderboardClient fromSystemProperty() {
+        String serverAddress = System.getProperty(SERVER_PROPERTY, "").trim();
+        return serverAddress.isEmpty() ? null : new LeaderboardClient(serverAddress);
+    }
+
+    /**
+     * Creates a client for a server.
+     *
+     * @param serverAddress The address of the server, e.g. "http://localhost:8765".
+     */
+    public LeaderboardClient(String serverAddress) {
+        this.serverAddress = serverAddress.endsWith("/") ? serverAddress.substring(0, serverAddress.length() - 1) : serverAddress;
+    }
+
+    /**
+     * Sends a score to the server, which keeps it if it is the player's best.
+     *
+     * @param highscore The score.
+     * @return The player's rank afterwards, starting from 1.
+     * @throws IOException If the server cannot be reached or refuses the score.
+     */
+    public int submit(Highscore highscore) throws IOException {
+        String params = "gameType=" + highscore.getGameType().name()
+                + "&difficulty=" + highscore.getDifficulty().name()
+                + "&name=" + encode(highscore.getPlayerName())
+                + "&score=" + highscore.getScore();
+        String response = request("/scores", params);
+        if (response == null) throw new IOException("Not a leaderboard server: " + serverAddress);
+        return parseInt(response.trim());
+    }
+
+    /**
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     * @param count The maximum number of scores.
+     * @return The best scores, from the highest to the lowest, one per player.
+     * @throws IOException If the server cannot be reached.
+     */
+    public List<Highscore> getTop(RealMain.GameType gameType, RealMain.Difficulty difficulty, int count) throws IOException {
+        String response = request("/top?gameType=" + gameType.name() + "&difficulty=" + difficulty.name() + "&count=" + count, null);
+        if (response == null) throw new IOException("Not a leaderboard server: " + serverAddress);
+        List<Highscore> top = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            if (line.isEmpty()) continue;
+            String[] values = line.split("\t");
+            if (values.length != 3) throw new IOException("Unexpected response: " + line);
+            top.add(new Highscore(gameType, difficulty, values[1], parseInt(values[2])));
+        }
+        return top;
+    }
+
+    /**
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     * @param playerName The name of the player.
+     * @return The player's rank, starting from 1, or -1 if they have no score.
+     * @throws IOException If the server cannot be reached.
+     */
+    public int getRank(RealMain.GameType gameType, RealMain.Difficulty difficulty, String playerName) throws IOException {
+        String response = request("/rank?gameType=" + gameType.name() + "&difficulty=" + difficulty.name() + "&name=" + encode(playerName), null);
+        return response == null ? -1 : parseInt(response.split("\t")[0]);
+    }
+
+    /**
+     * Sends a request, trying again once if the connection fails or the server
+     * takes too long to answer. The server may have closed a connection kept
+     * open from an earlier request, or be busy with a burst of requests, and
+     * every request can safely be made twice: submitting the same score again
+     * changes nothing.
+     *
+     * @param path The path and query of the request.
+     * @param form The form encoded body of a POST, or null for a GET.
+     * @return The response as text, or null if the server has nothing for the request.
+     * @throws IOException If the request failed.
+     */
+    private String request(String path, String form) throws IOException {
+        try {
+            return requestOnce(path, form);
+        }
+        catch (SocketException | SocketTimeoutException e) {
+            return requestOnce(path, form);
+        }
+    }
+
+    /**
+     * @param path The path and query of the request.
+     * @param form The form encoded body of a POST, or null for a GET.
+     * @return The response as text, or null if the server has nothing for the request.
+     * @throws IOException If the request failed.
+     */
+    private String requestOnce(String path, String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(serverAddress + path).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        if (form != null) {
+            byte[] body = form.getBytes(StandardCharsets.UTF_8);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        return read(connection);
+    }
+
+    /**
+     * Reads the whole response. The connection is left for reuse by the next
+     * request to the server.
+     *
+     * @param connection The connection.
+     * @return The response as text, or null if the server has nothing for the request.
+     * @throws IOException If the request failed.
+     */
+    private static String read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream stream = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        if (stream != null) {
+            try (InputStream in = stream) {
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) response.write(buffer, 0, read);
+            }
+        }
+        String text = new String(response.toByteArray(), StandardCharsets.UTF_8);
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) return null;
+        if (status != HttpURLConnection.HTTP_OK) throw new IOException("Leaderboard server answered " + status + ": " + text.trim());
+        return text;
+    }
+
+    /**
+     * @param text A number from the server.
+     * @return The number.
+     * @throws IOException If it is not a number.
+     */
+    private static int parseInt(String text) throws IOException {
+        try {
+            return Integer.parseInt(text);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Unexpected response: " + text, e);
+        }
+    }
+
+    /**
+     * @param text A parameter value.
+     * @return The value, form encoded.
+     */
+    private static String encode(String text) throws UnsupportedEncodingException {
+        return URLEncoder.encode(text, "UTF-8");
+    }
+
+}
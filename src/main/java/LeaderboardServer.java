@@ -0,0 +1,347 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a leaderboard server shared by every machine in a classroom.
+ * It runs on one machine, e.g. the teacher's, and the games on the other
+ * machines send their highscores to it when they are told where it is (see
+ * {@link LeaderboardClient}). It is started by running the game with
+ * {@value #COMMAND_LINE_FLAG} and optionally a port, and needs no display.
+ * <p>
+ * It uses the HTTP server built into the JDK and answers in plain text, one
+ * line per result with the values separated by tabs:
+ * <pre>
+ * POST /scores   gameType, difficulty, name, score   the player's rank
+ * GET  /top      gameType, difficulty, count         rank, name and score of the best players
+ * GET  /rank     gameType, difficulty, name          rank and score of the player, or 404
+ * </pre>
+ * Parameters are form encoded, in the body of a POST and in the query of a
+ * GET. Each player keeps their best score in a {@link ScoreRanking} per game
+ * type and difficulty, so requests are handled in parallel. The highscores are
+ * only kept in memory.
+ */
+public class LeaderboardServer {
+
+    public static final String COMMAND_LINE_FLAG = "--leaderboard-server";
+    public static final int DEFAULT_PORT = 8765;
+    // The number of connections waiting to be accepted, enough for a burst from a whole classroom.
+    private static final int BACKLOG = 1024;
+    // The most scores a single /top request returns.
+    private static final int MAX_COUNT = 1000;
+    // Names are cut to the length the game allows.
+    private static final int MAX_NAME_LENGTH = 10;
+    // Settings of the HTTP server built into the JDK.
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String MAX_IDLE_CONNECTIONS_PROPERTY = "sun.net.httpserver.maxIdleConnections";
+    // The longest request body accepted, in bytes.
+    private static final int MAX_BODY_LENGTH = 1024;
+
+    private final HttpServer server;
+    private final Map<RealMain.GameType, Map<RealMain.Difficulty, ScoreRanking>> rankings = new EnumMap<>(RealMain.GameType.class);
+
+    /**
+     * Starts the server from the command line. The argument after the flag,
+     * if any, is the port.
+     *
+     * @param args The command line arguments, starting with the flag.
+     * @throws IOException If the server cannot be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        if (args.length > 1) {
+            try {
+                port = Integer.parseInt(args[1]);
+            }
+            catch (NumberFormatException e) {
+                System.err.println("Not a valid port: " + args[1]);
+                System.exit(1);
+            }
+        }
+        LeaderboardServer server = new LeaderboardServer(new InetSocketAddress(port));
+        server.start();
+        System.out.println("Leaderboard server listening on port " + server.getPort());
+    }
+
+    /**
+     * Creates a server with empty rankings. It does not accept requests until
+     * it is started.
+     *
+     * @param address The address to listen on; port 0 picks a free port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public LeaderboardServer(InetSocketAddress address) throws IOException {
+        // Every ranking is created up front, so the maps are never changed
+        // once requests come in and can be read from any thread.
+        for (RealMain.GameType gameType : RealMain.GameType.values()) {
+            Map<RealMain.Difficulty, ScoreRanking> difficultyRankings = new EnumMap<>(RealMain.Difficulty.class);
+            for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+                difficultyRankings.put(difficulty, new ScoreRanking(gameType, difficulty));
+            }
+            rankings.put(gameType, difficultyRankings);
+        }
+
+        // The JDK reads these when its first server is created. Each response
+        // is sent straight away, as otherwise the body waits for the client to
+        // acknowledge the headers, which it delays by up to 40 ms. Every client
+        // may keep its connection open between requests, as by default the
+        // server closes all but 200, making the others connect again.
+        setDefault(NO_DELAY_PROPERTY, "true");
+        setDefault(MAX_IDLE_CONNECTIONS_PROPERTY, Integer.toString(BACKLOG));
+        server = HttpServer.create(address, BACKLOG);
+        server.createContext("/scores", exchange -> handle(exchange, "POST", this::submit));
+        server.createContext("/top", exchange -> handle(exchange, "GET", this::top));
+        server.createContext("/rank", exchange -> handle(exchange, "GET", this::rank));
+        server.setExecutor(BackgroundExecutor.get());
+    }
+
+    /**
+     * Sets a system property unless it has been set already, e.g. on the
+     * command line.
+     *
+     * @param property The name of the property.
+     * @param value The value.
+     */
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) System.setProperty(property, value);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to a second for those in progress.
+     */
+    public void stop() {
+        server.stop(1);
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     * @return The ranking of the game type and difficulty.
+     */
+    public ScoreRanking getRanking(RealMain.GameType gameType, RealMain.Difficulty difficulty) {
+        return rankings.get(gameType).get(difficulty);
+    }
+
+    /*
+        Answers a request from its parameters, or throws an
+        IllegalArgumentException if they are not valid.
+     */
+    private interface Handler {
+        String answer(Map<String, String> params);
+    }
+
+    /**
+     * Handles a request: checks the method, reads the parameters and sends
+     * the answer, or the error if there is one.
+     *
+     * @param exchange The request and its response.
+     * @param method The method the request must use.
+     * @param handler Answers the request.
+     * @throws IOException If the request cannot be read or the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                send(exchange, 405, "Use " + method + "\n");
+                return;
+            }
+            String answer;
+            try {
+                String query = method.equals("POST") ? readBody(exchange.getRequestBody()) : exchange.getRequestURI().getRawQuery();
+                answer = handler.answer(parseParams(query));
+            }
+            catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            if (answer == null) send(exchange, 404, "No score\n");
+            else send(exchange, 200, answer);
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param params The game type, difficulty, name and score.
+     * @return The player's rank.
+     */
+    private String submit(Map<String, String> params) {
+        RealMain.GameType gameType = getGameType(params);
+        RealMain.Difficulty difficulty = getDifficulty(params);
+        int score = getInt(params, "score");
+        Highscore highscore = new Highscore(gameType, difficulty, getName(params), score);
+        return getRanking(gameType, difficulty).submit(highscore) + "\n";
+    }
+
+    /**
+     * @param params The game type, difficulty and number of scores.
+     * @return The rank, name and score of the best players.
+     */
+    private String top(Map<String, String> params) {
+        int count = Math.min(getInt(params, "count"), MAX_COUNT);
+        List<Highscore> top = getRanking(getGameType(params), getDifficulty(params)).getTop(count);
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < top.size(); i++) {
+            answer.append(i + 1).append('\t').append(top.get(i).getPlayerName()).append('\t').append(top.get(i).getScore()).append('\n');
+        }
+        return answer.toString();
+    }
+
+    /**
+     * @param params The game type, difficulty and name.
+     * @return The rank and score of the player, or null if they have no score.
+     */
+    private String rank(Map<String, String> params) {
+        ScoreRanking.Standing standing = getRanking(getGameType(params), getDifficulty(params)).getStanding(getName(params));
+        if (standing == null) return null;
+        return standing.getRank() + "\t" + standing.getHighscore().getScore() + "\n";
+    }
+
+    /**
+     * @param params The parameters.
+     * @return The game type parameter.
+     */
+    private static RealMain.GameType getGameType(Map<String, String> params) {
+        String value = getParam(params, "gameType");
+        try {
+            return RealMain.GameType.valueOf(value);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a valid gameType: " + value);
+        }
+    }
+
+    /**
+     * @param params The parameters.
+     * @return The difficulty parameter.
+     */
+    private static RealMain.Difficulty getDifficulty(Map<String, String> params) {
+        String value = getParam(params, "difficulty");
+        try {
+            return RealMain.Difficulty.valueOf(value);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a valid difficulty: " + value);
+        }
+    }
+
+    /**
+     * @param params The parameters.
+     * @return The name parameter, cut to the length the game allows.
+     */
+    private static String getName(Map<String, String> params) {
+        String name = getParam(params, "name").trim();
+        if (name.isEmpty()) throw new IllegalArgumentException("Empty name");
+        // Names go into the tab and line separated answers, so they must not
+        // contain tabs, line breaks or any other control characters.
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isISOControl(name.charAt(i))) throw new IllegalArgumentException("Name contains a control character");
+        }
+        return name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name;
+    }
+
+    /**
+     * @param params The parameters.
+     * @param name The name of a parameter.
+     * @return The parameter as a non-negative number.
+     */
+    private static int getInt(Map<String, String> params, String name) {
+        String value = getParam(params, name);
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid " + name + ": " + value);
+        }
+        if (number < 0) throw new IllegalArgumentException("Not a valid " + name + ": " + value);
+        return number;
+    }
+
+    /**
+     * @param params The parameters.
+     * @param name The name of a parameter.
+     * @return The parameter.
+     */
+    private static String getParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing " + name);
+        return value;
+    }
+
+    /**
+     * @param query Form encoded parameters, or null if there are none.
+     * @return The parameters by name.
+     */
+    private static Map<String, String> parseParams(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) return params;
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals == -1) continue;
+            params.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+        }
+        return params;
+    }
+
+    /**
+     * @param in The body of a request.
+     * @return The body as text.
+     * @throws IOException If the body cannot be read.
+     * @throws IllegalArgumentException If the body is too long.
+     */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+            if (body.size() > MAX_BODY_LENGTH) throw new IllegalArgumentException("Request too long");
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param exchange The request and its response.
+     * @param status The status code.
+     * @param text The text of the response.
+     * @throws IOException If the response cannot be sent.
+     */
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+}
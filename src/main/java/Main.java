@@ -1,9 +1,16 @@
+import java.io.IOException;
+
 /**
  * This class is the entry point of the program. It starts the program off by
- * calling the launch method in RealMain.
+ * calling the launch method in RealMain, or starts the classroom leaderboard
+ * server instead if the first argument is the server flag.
  */
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals(LeaderboardServer.COMMAND_LINE_FLAG)) {
+            LeaderboardServer.main(args);
+            return;
+        }
         RealMain.launch(RealMain.class);
     }
 }
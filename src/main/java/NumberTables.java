@@ -0,0 +1,342 @@
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+/**
+ * This class holds precomputed number tables used when creating questions. It
+ * stores the smallest prime factor of every number below a limit, which gives
+ * constant time primality checks and lets a random factor of a number be picked
+ * without building a list of all its factors. There is one shared table per
+ * difficulty, covering all the answers that difficulty can produce; each table
+ * is only built the first time it is needed.
+ * <p>
+ * Answers too big for an int, from templates with long slots, are only trial
+ * divided by the primes below {@value #TRIAL_LIMIT}. Whatever is left after
+ * that is treated as if it were prime, so such answers are only ever split into
+ * factors that are known for certain.
+ */
+public class NumberTables {
+
+    // Easy answers are up to 3 digits long and hard answers up to 6 digits long.
+    private static final int EASY_LIMIT = 1_000;
+    private static final int HARD_LIMIT = 1_000_000;
+    // Numbers too big for an int are only trial divided by the primes below this.
+    private static final int TRIAL_LIMIT = 1_000;
+    private static final int[] TRIAL_PRIMES = primesBelow(TRIAL_LIMIT);
+    // Numbers too big for an int are checked for primality with a probabilistic
+    // test, which is wrong with a probability of at most 2^-PRIME_CERTAINTY.
+    private static final int PRIME_CERTAINTY = 64;
+
+    private final int limit;
+    // The smallest prime factor of each composite number below the limit, or 0
+    // if the number is prime (or 0 or 1). Since a composite number's smallest
+    // prime factor is at most its square root, it always fits in a char.
+    private final char[] smallestPrimeFactor;
+
+    /*
+        The tables are built lazily, the first time the holder class of a
+        difficulty is used.
+     */
+    private static class EasyHolder {
+        static final NumberTables TABLES = new NumberTables(EASY_LIMIT);
+    }
+
+    private static class HardHolder {
+        static final NumberTables TABLES = new NumberTables(HARD_LIMIT);
+    }
+
+    /**
+     * Builds the tables for all numbers below the given limit, using a sieve.
+     *
+     * @param limit The limit. Must be between 0 and {@link Integer#MAX_VALUE},
+     *              so its square root, the biggest factor stored, is below
+     *              46341 and fits in a char.
+     */
+    private NumberTables(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Not a valid limit: " + limit);
+        this.limit = limit;
+        this.smallestPrimeFactor = new char[limit];
+        for (int i = 2; (long) i * i < limit; i++) {
+            // Only primes cross out their multiples.
+            if (smallestPrimeFactor[i] != 0) continue;
+            // A long, so stepping past a limit close to Integer.MAX_VALUE cannot overflow.
+            for (long j = (long) i * i; j < limit; j += i) {
+                if (smallestPrimeFactor[(int) j] == 0) smallestPrimeFactor[(int) j] = (char) i;
+            }
+        }
+    }
+
+    /**
+     * Lists the primes below a small limit, using a sieve.
+     *
+     * @param limit The limit.
+     * @return The primes below the limit, in increasing order.
+     */
+    private static int[] primesBelow(int limit) {
+        boolean[] composite = new boolean[limit];
+        int count = 0;
+        for (int i = 2; i < limit; i++) {
+            if (composite[i]) continue;
+            count++;
+            for (int j = i * i; j < limit; j += i) composite[j] = true;
+        }
+        int[] primes = new int[count];
+        count = 0;
+        for (int i = 2; i < limit; i++) {
+            if (!composite[i]) primes[count++] = i;
+        }
+        return primes;
+    }
+
+    /**
+     * Returns the tables covering the answers of the given difficulty.
+     *
+     * @param difficulty The difficulty.
+     * @return The tables for the difficulty.
+     */
+    public static NumberTables forDifficulty(RealMain.Difficulty difficulty) {
+        if (difficulty == RealMain.Difficulty.EASY) return EasyHolder.TABLES;
+        return HardHolder.TABLES;
+    }
+
+    /**
+     * @return The limit; all numbers below it are covered by the tables.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the smallest prime factor of a number, which is the number itself
+     * if it is prime. Numbers outside the tables are trial divided.
+     *
+     * @param number The number, at least 2.
+     * @return The smallest prime factor of the number.
+     */
+    private int smallestPrimeFactor(int number) {
+        if (number < limit) {
+            int factor = smallestPrimeFactor[number];
+            return factor == 0 ? number : factor;
+        }
+        if (number % 2 == 0) return 2;
+        for (int i = 3; i <= number / i; i += 2) {
+            if (number % i == 0) return i;
+        }
+        return number;
+    }
+
+    /**
+     * Checks if a number is prime.
+     *
+     * @param number The number to be checked.
+     * @return True if the number is prime, false otherwise.
+     */
+    public boolean isPrime(int number) {
+        return number >= 2 && smallestPrimeFactor(number) == number;
+    }
+
+    /**
+     * Checks if a number is prime. Numbers that fit in an int are checked
+     * exactly, larger numbers with a probabilistic test.
+     *
+     * @param number The number to be checked.
+     * @return True if the number is prime, false otherwise.
+     */
+    public boolean isPrime(long number) {
+        if (number < 2) return false;
+        if (number <= Integer.MAX_VALUE) return isPrime((int) number);
+        return BigInteger.valueOf(number).isProbablePrime(PRIME_CERTAINTY);
+    }
+
+    /**
+     * Checks if a number of any length is prime. See {@link #isPrime(long)}.
+     *
+     * @param number The number to be checked.
+     * @return True if the number is prime, false otherwise.
+     */
+    public boolean isPrime(BigInteger number) {
+        if (number.bitLength() < Long.SIZE) return isPrime(number.longValue());
+        return number.isProbablePrime(PRIME_CERTAINTY);
+    }
+
+    /**
+     * Checks if a number is composite, i.e. if it has a factor other than 1 and
+     * itself. Only composite numbers can be written as a multiplication.
+     *
+     * @param number The number to be checked.
+     * @return True if the number is composite, false otherwise.
+     */
+    public boolean isComposite(int number) {
+        return number >= 4 && smallestPrimeFactor(number) != number;
+    }
+
+    /**
+     * Picks a random factor of a composite number, other than 1 and the number
+     * itself. Every such factor is equally likely to be picked.
+     * <p>
+     * The factors are never listed. Instead, each factor corresponds to a choice
+     * of exponent for every prime factor of the number, so the factors can be
+     * numbered and a random number can be turned back into a factor by reading
+     * off its digits in the mixed base given by the exponents.
+     *
+     * @param number The composite number.
+     * @param rand The source of randomness.
+     * @return A random factor of the number.
+     */
+    public int randomFactor(int number, SplittableRandom rand) {
+        // Count the factors, including 1 and the number itself.
+        int factorCount = 1;
+        int remaining = number;
+        while (remaining > 1) {
+            int prime = smallestPrimeFactor(remaining);
+            int exponent = 0;
+            while (remaining % prime == 0) {
+                remaining /= prime;
+                exponent++;
+            }
+            factorCount *= exponent + 1;
+        }
+
+        // Factor 0 is 1 and the last factor is the number itself, so skip them.
+        int index = rand.nextInt(factorCount - 2) + 1;
+
+        // Turn the index back into a factor.
+        int factor = 1;
+        remaining = number;
+        while (remaining > 1) {
+            int prime = smallestPrimeFactor(remaining);
+            int exponent = 0;
+            while (remaining % prime == 0) {
+                remaining /= prime;
+                exponent++;
+            }
+            int chosenExponent = index % (exponent + 1);
+            index /= exponent + 1;
+            for (int i = 0; i < chosenExponent; i++) factor *= prime;
+        }
+        return factor;
+    }
+
+    /**
+     * Checks if a number can be written as a multiplication of two numbers
+     * other than 1 and itself. Numbers that fit in an int are checked exactly;
+     * larger numbers only if they have a factor below {@value #TRIAL_LIMIT}.
+     *
+     * @param number The number to be checked.
+     * @return True if a factor of the number other than 1 and itself is known, false otherwise.
+     */
+    public boolean canBeMultiplication(long number) {
+        if (number <= Integer.MAX_VALUE) return isComposite((int) number);
+        for (int prime : TRIAL_PRIMES) {
+            if (number % prime == 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Picks a random factor of a number, other than 1 and the number itself.
+     * For numbers that fit in an int this is the same as
+     * {@link #randomFactor(int, SplittableRandom)}. Larger numbers are factored
+     * as far as the trial primes go and the part left over is treated as a
+     * single prime.
+     *
+     * @param number A number for which {@link #canBeMultiplication(long)} is true.
+     * @param rand The source of randomness.
+     * @return A random factor of the number.
+     */
+    public long randomFactor(long number, SplittableRandom rand) {
+        if (number <= Integer.MAX_VALUE) return randomFactor((int) number, rand);
+
+        // Count the factors, including 1 and the number itself.
+        int factorCount = 1;
+        long remaining = number;
+        for (int prime : TRIAL_PRIMES) {
+            if ((long) prime * prime > remaining) break;
+            int exponent = 0;
+            while (remaining % prime == 0) {
+                remaining /= prime;
+                exponent++;
+            }
+            factorCount *= exponent + 1;
+        }
+        if (remaining > 1) factorCount *= 2;
+
+        // Factor 0 is 1 and the last factor is the number itself, so skip them.
+        int index = rand.nextInt(factorCount - 2) + 1;
+
+        // Turn the index back into a factor.
+        long factor = 1;
+        remaining = number;
+        for (int prime : TRIAL_PRIMES) {
+            if ((long) prime * prime > remaining) break;
+            int exponent = 0;
+            while (remaining % prime == 0) {
+                remaining /= prime;
+                exponent++;
+            }
+            int chosenExponent = index % (exponent + 1);
+            index /= exponent + 1;
+            for (int i = 0; i < chosenExponent; i++) factor *= prime;
+        }
+        if (remaining > 1 && index % 2 == 1) factor *= remaining;
+        return factor;
+    }
+
+    /**
+     * Checks if a number can be written as a multiplication of two numbers
+     * other than 1 and itself. See {@link #canBeMultiplication(long)}.
+     *
+     * @param number The number to be checked.
+     * @return True if a factor of the number other than 1 and itself is known, false otherwise.
+     */
+    public boolean canBeMultiplication(BigInteger number) {
+        if (number.bitLength() < Long.SIZE) return canBeMultiplication(number.longValue());
+        for (int prime : TRIAL_PRIMES) {
+            if (number.mod(BigInteger.valueOf(prime)).signum() == 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Picks a random factor of a number, other than 1 and the number itself.
+     * See {@link #randomFactor(long, SplittableRandom)}.
+     *
+     * @param number A number for which {@link #canBeMultiplication(BigInteger)} is true.
+     * @param rand The source of randomness.
+     * @return A random factor of the number.
+     */
+    public BigInteger randomFactor(BigInteger number, SplittableRandom rand) {
+        if (number.bitLength() < Long.SIZE) return BigInteger.valueOf(randomFactor(number.longValue(), rand));
+
+        // Factor out the trial primes. Big numbers are rare, so rather than
+        // stopping early, every trial prime is simply tried.
+        int[] exponents = new int[TRIAL_PRIMES.length];
+        int factorCount = 1;
+        BigInteger remaining = number;
+        for (int i = 0; i < TRIAL_PRIMES.length; i++) {
+            BigInteger prime = BigInteger.valueOf(TRIAL_PRIMES[i]);
+            BigInteger[] quotientAndRemainder = remaining.divideAndRemainder(prime);
+            while (quotientAndRemainder[1].signum() == 0) {
+                remaining = quotientAndRemainder[0];
+                exponents[i]++;
+                quotientAndRemainder = remaining.divideAndRemainder(prime);
+            }
+            factorCount *= exponents[i] + 1;
+        }
+        boolean leftOver = !remaining.equals(BigInteger.ONE);
+        if (leftOver) factorCount *= 2;
+
+        // Factor 0 is 1 and the last factor is the number itself, so skip them.
+        int index = rand.nextInt(factorCount - 2) + 1;
+
+        // Turn the index back into a factor.
+        BigInteger factor = BigInteger.ONE;
+        for (int i = 0; i < TRIAL_PRIMES.length; i++) {
+            int chosenExponent = index % (exponents[i] + 1);
+            index /= exponents[i] + 1;
+            if (chosenExponent > 0) factor = factor.multiply(BigInteger.valueOf(TRIAL_PRIMES[i]).pow(chosenExponent));
+        }
+        if (leftOver && index % 2 == 1) factor = factor.multiply(remaining);
+        return factor;
+    }
+
+}
@@ -0,0 +1,88 @@
+import javafx.scene.layout.Region;
+
+/**
+ * This interface is the puzzle grid shown in the cross number puzzle window. It
+ * draws the squares and question numbers and lets the user type a digit into
+ * each square that is part of the puzzle. There are two kinds of board: one
+ * made of a text field per square, and one drawn on a single canvas with one
+ * shared text field, which keeps the number of nodes the same however large
+ * the grid is.
+ */
+public interface PuzzleBoard {
+
+    /**
+     * Something to be done when the user moves to a square.
+     */
+    interface SquareListener {
+        /**
+         * @param row The row the square is at.
+         * @param col The col the square is at.
+         */
+        void squareFocused(int row, int col);
+    }
+
+    /*
+        The system property for choosing the kind of board, either "textfield"
+        or "canvas". If it is not set, grids with more squares than the
+        threshold are drawn on a canvas.
+     */
+    String RENDERER_PROPERTY = "puzzle.board";
+    int CANVAS_THRESHOLD = 400;
+
+    // The font family of the digits and question numbers in the squares.
+    String FONT_FAMILY = "Arial";
+
+    /**
+     * Creates the board for a game, choosing the kind of board from the system
+     * property or the size of the grid.
+     *
+     * @param game The game.
+     * @return The board.
+     */
+    static PuzzleBoard create(CrossNumberPuzzleGame game) {
+        String renderer = System.getProperty(RENDERER_PROPERTY, "");
+        boolean canvas;
+        switch (renderer) {
+            case "canvas":
+                canvas = true;
+                break;
+            case "textfield":
+                canvas = false;
+                break;
+            default:
+                canvas = game.getRowSize() * game.getColSize() > CANVAS_THRESHOLD;
+        }
+        return canvas ? new CanvasPuzzleBoard(game) : new TextFieldPuzzleBoard(game);
+    }
+
+    /**
+     * @return The node to add to the window.
+     */
+    Region getNode();
+
+    /**
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return The text the user has entered in the square, or an empty string if there is none.
+     */
+    String getText(int row, int col);
+
+    /**
+     * Sets the state of the square at the specified row and column, which
+     * sets the colour of its text. The square goes back to neutral once the
+     * user changes the text.
+     *
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @param state The state.
+     */
+    void setState(int row, int col, AnswerState state);
+
+    /**
+     * Sets what to do when the user moves to a square, e.g. show its question.
+     *
+     * @param listener The listener, or null for none.
+     */
+    void setOnSquareFocused(SquareListener listener);
+
+}
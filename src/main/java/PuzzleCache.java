@@ -0,0 +1,60 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This class caches generated puzzles by their ID. Since a puzzle is fully
+ * determined by its ID, a cached puzzle is always the same as a freshly
+ * generated one. The cache holds a limited number of puzzles and forgets the
+ * least recently used one when it is full. It is safe to use from several
+ * threads.
+ */
+public class PuzzleCache {
+
+    private static final PuzzleCache SHARED = new PuzzleCache(64);
+
+    private final Map<PuzzleId, CrossNumberPuzzle> puzzles;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity The maximum number of puzzles to hold.
+     */
+    public PuzzleCache(int capacity) {
+        this.puzzles = new LinkedHashMap<PuzzleId, CrossNumberPuzzle>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PuzzleId, CrossNumberPuzzle> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by the whole application.
+     */
+    public static PuzzleCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the puzzle with the given ID, generating it if it is not cached.
+     *
+     * @param id The ID of the puzzle.
+     * @param generator Generates the puzzle from its ID if it is not cached.
+     * @return The puzzle.
+     */
+    public CrossNumberPuzzle get(PuzzleId id, Function<PuzzleId, CrossNumberPuzzle> generator) {
+        synchronized (puzzles) {
+            CrossNumberPuzzle puzzle = puzzles.get(id);
+            if (puzzle != null) return puzzle;
+        }
+
+        // Generate outside the lock; at worst two threads generate the same puzzle.
+        CrossNumberPuzzle puzzle = generator.apply(id);
+        synchronized (puzzles) {
+            puzzles.put(id, puzzle);
+        }
+        return puzzle;
+    }
+
+}
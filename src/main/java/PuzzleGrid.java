@@ -0,0 +1,162 @@
+/**
+ * This class is a compact grid of puzzle squares. Each square is a single byte
+ * in one flat array: the high four bits hold the kind of square (its template
+ * character) and the low four bits hold its digit plus one, or zero if it has
+ * no digit yet. A template's grid has no digits; a solution is a copy of it
+ * with every used square given a digit.
+ * <p>
+ * Copies share the array until one of them is changed, so copying a grid is
+ * cheap and many puzzles made from the same template cost one byte per square
+ * each.
+ */
+public class PuzzleGrid {
+
+    // The template characters, in the order of their kind codes.
+    private static final String KINDS = "-OADB";
+    private static final int NO_DIGIT = 0;
+
+    private final int colSize;
+    private final int rowSize;
+    private byte[] cells;
+    // True if the array may be shared with another grid and must be copied before it is changed.
+    private boolean shared;
+
+    /**
+     * Creates a grid that uses the given array.
+     *
+     * @param colSize The column size i.e. the number of rows.
+     * @param rowSize The row size i.e. the number of columns.
+     * @param cells The packed squares, row by row.
+     * @param shared True if the array is shared with another grid.
+     */
+    private PuzzleGrid(int colSize, int rowSize, byte[] cells, boolean shared) {
+        this.colSize = colSize;
+        this.rowSize = rowSize;
+        this.cells = cells;
+        this.shared = shared;
+    }
+
+    /**
+     * Creates a grid with no digits from template characters.
+     *
+     * @param templateCells The template characters, indexed by row and then column.
+     * @return The grid.
+     * @throws IllegalArgumentException If a character is not a template character.
+     */
+    public static PuzzleGrid fromTemplate(char[][] templateCells) {
+        int colSize = templateCells.length;
+        int rowSize = colSize == 0 ? 0 : templateCells[0].length;
+        byte[] cells = new byte[colSize * rowSize];
+        for (int row = 0; row < colSize; row++) {
+            for (int col = 0; col < rowSize; col++) {
+                int kind = KINDS.indexOf(templateCells[row][col]);
+                if (kind < 0) throw new IllegalArgumentException("Not a template character: '" + templateCells[row][col] + "'");
+                cells[row * rowSize + col] = (byte) (kind << 4 | NO_DIGIT);
+            }
+        }
+        return new PuzzleGrid(colSize, rowSize, cells, false);
+    }
+
+    /**
+     * Returns a copy of the grid. The copy shares this grid's array until
+     * either of them is changed.
+     *
+     * @return The copy.
+     */
+    public PuzzleGrid copy() {
+        markShared();
+        return new PuzzleGrid(colSize, rowSize, cells, true);
+    }
+
+    /**
+     * Marks the grid's array as shared, so the grid copies it before it is
+     * changed. A grid used by several threads, like a template's, should be
+     * marked before it is handed out, so that copying it never writes to it.
+     */
+    public void markShared() {
+        // Only write the flag if needed, so grids that are already shared can
+        // be copied from several threads at once.
+        if (!shared) shared = true;
+    }
+
+    /**
+     * @return The column size i.e. the number of rows
+     */
+    public int getColSize() {return colSize;}
+
+    /**
+     * @return The row size i.e. the number of columns
+     */
+    public int getRowSize() {return rowSize;}
+
+    /**
+     * Returns the template character of the square at the specified row and
+     * column.
+     *
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return The template character, i.e. '-', 'O', 'A', 'D' or 'B'.
+     */
+    public char getCharAt(int row, int col) {
+        return KINDS.charAt(cells[row * rowSize + col] >> 4);
+    }
+
+    /**
+     * Returns the digit of the square at the specified row and column as a
+     * character. Squares without a digit return their template character.
+     *
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return The digit as a character, e.g. '7', or the template character if there is no digit.
+     */
+    public char getDigitAt(int row, int col) {
+        int digit = getDigit(row, col);
+        return digit < 0 ? getCharAt(row, col) : (char) (digit + '0');
+    }
+
+    /**
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return The digit of the square, or -1 if it has none.
+     */
+    public int getDigit(int row, int col) {
+        return (cells[row * rowSize + col] & 0x0F) - 1;
+    }
+
+    /**
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return True if the square has a digit, false otherwise.
+     */
+    public boolean hasDigit(int row, int col) {
+        return (cells[row * rowSize + col] & 0x0F) != NO_DIGIT;
+    }
+
+    /**
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @return True if the square is part of the puzzle, i.e. not marked '-'.
+     */
+    public boolean isUsed(int row, int col) {
+        return cells[row * rowSize + col] >> 4 != 0;
+    }
+
+    /**
+     * Sets the digit of the square at the specified row and column. If the
+     * array is shared with another grid, it is copied first.
+     *
+     * @param row The row the square is at.
+     * @param col The col the square is at.
+     * @param digit The digit, from 0 to 9.
+     */
+    public void setDigit(int row, int col, int digit) {
+        if (digit < 0 || digit > 9) throw new IllegalArgumentException("Not a digit: " + digit);
+        if (shared) {
+            cells = cells.clone();
+            shared = false;
+        }
+        int index = row * rowSize + col;
+        cells[index] = (byte) (cells[index] & 0xF0 | (digit + 1));
+    }
+
+}
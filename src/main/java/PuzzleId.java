@@ -0,0 +1,107 @@
+import java.util.Locale;
+
+/**
+ * This class identifies a single cross number puzzle. A puzzle is fully
+ * determined by its difficulty, the number of the template it was made from
+ * (the N in "puzzleN.txt") and the seed used to fill it out, so any machine can
+ * regenerate it from its ID.
+ * <p>
+ * IDs are written as the first letter of the difficulty, the template number,
+ * a dash and the seed in base 36, e.g. "H3-1Z8KQ4". This is short enough to be
+ * read out to a class or written on a board. IDs are not case sensitive.
+ */
+public class PuzzleId {
+
+    private final RealMain.Difficulty difficulty;
+    private final int templateNumber;
+    private final int seed;
+
+    /**
+     * Creates a puzzle ID.
+     *
+     * @param difficulty The difficulty.
+     * @param templateNumber The number of the template, at least 1.
+     * @param seed The seed used to fill out the template.
+     */
+    public PuzzleId(RealMain.Difficulty difficulty, int templateNumber, int seed) {
+        if (templateNumber < 1) throw new IllegalArgumentException("Template numbers start at 1!");
+        this.difficulty = difficulty;
+        this.templateNumber = templateNumber;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads a puzzle ID from its string form.
+     *
+     * @param id The ID, e.g. "H3-1Z8KQ4".
+     * @return The puzzle ID.
+     * @throws IllegalArgumentException If the string is not a valid puzzle ID.
+     */
+    public static PuzzleId parse(String id) {
+        String s = id.trim().toUpperCase(Locale.ROOT);
+        int dash = s.indexOf('-');
+        if (s.length() < 4 || dash < 2 || dash == s.length() - 1) {
+            throw new IllegalArgumentException("Not a valid puzzle ID: " + id);
+        }
+
+        // Find the difficulty from its first letter.
+        RealMain.Difficulty difficulty = null;
+        for (RealMain.Difficulty d : RealMain.Difficulty.values()) {
+            if (d.name().charAt(0) == s.charAt(0)) difficulty = d;
+        }
+        if (difficulty == null) throw new IllegalArgumentException("Not a valid puzzle ID: " + id);
+
+        try {
+            int templateNumber = Integer.parseInt(s.substring(1, dash));
+            long seed = Long.parseLong(s.substring(dash + 1), 36);
+            if (seed < 0 || seed > 0xFFFFFFFFL) throw new IllegalArgumentException("Not a valid puzzle ID: " + id);
+            return new PuzzleId(difficulty, templateNumber, (int) seed);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid puzzle ID: " + id, e);
+        }
+    }
+
+    /**
+     * @return The difficulty.
+     */
+    public RealMain.Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * @return The number of the template, i.e. the N in "puzzleN.txt".
+     */
+    public int getTemplateNumber() {
+        return templateNumber;
+    }
+
+    /**
+     * @return The seed used to fill out the template.
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The ID in string form, e.g. "H3-1Z8KQ4".
+     */
+    @Override
+    public String toString() {
+        return "" + difficulty.name().charAt(0) + templateNumber + "-" + Long.toString(seed & 0xFFFFFFFFL, 36).toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PuzzleId)) return false;
+        PuzzleId other = (PuzzleId) o;
+        return difficulty == other.difficulty && templateNumber == other.templateNumber && seed == other.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return (difficulty.ordinal() * 31 + templateNumber) * 31 + seed;
+    }
+
+}
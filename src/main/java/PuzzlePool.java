@@ -0,0 +1,134 @@
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class keeps a few ready to play puzzles for each difficulty, so a new
+ * game can start without waiting for its puzzle to be generated. The puzzles
+ * are generated on a background thread, and the pool is topped up again every
+ * time a puzzle is taken. It is safe to use from several threads.
+ */
+public class PuzzlePool {
+
+    // The number of ready puzzles kept for each difficulty.
+    private static final int PUZZLES_PER_DIFFICULTY = 3;
+
+    private final PuzzleTemplateRegistry registry;
+    private final int capacity;
+    private final Map<RealMain.Difficulty, BlockingQueue<CrossNumberPuzzle>> puzzles = new EnumMap<>(RealMain.Difficulty.class);
+    // The number of puzzles for each difficulty that are being generated.
+    private final Map<RealMain.Difficulty, AtomicInteger> pending = new EnumMap<>(RealMain.Difficulty.class);
+    private final ExecutorService executor;
+
+    /*
+        The pool for the templates next to the application is created lazily,
+        the first time it is needed.
+     */
+    private static class SharedHolder {
+        static final PuzzlePool POOL = new PuzzlePool(PuzzleTemplateRegistry.getDefault(), PUZZLES_PER_DIFFICULTY);
+    }
+
+    /**
+     * Creates an empty pool. Nothing is generated until {@link #start()} is
+     * called or a puzzle is taken.
+     *
+     * @param registry The templates to generate puzzles from.
+     * @param capacity The number of ready puzzles to keep for each difficulty.
+     */
+    public PuzzlePool(PuzzleTemplateRegistry registry, int capacity) {
+        this.registry = registry;
+        this.capacity = capacity;
+        for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+            puzzles.put(difficulty, new ArrayBlockingQueue<>(capacity));
+            pending.put(difficulty, new AtomicInteger());
+        }
+        // A single background thread, so generating never competes with the
+        // user interface for more than one core.
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The pool for the templates next to the application.
+     */
+    public static PuzzlePool shared() {
+        return SharedHolder.POOL;
+    }
+
+    /**
+     * Starts filling the pool for every difficulty that has templates.
+     */
+    public void start() {
+        for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+            if (!registry.getTemplates(difficulty).isEmpty()) topUp(difficulty);
+        }
+    }
+
+    /**
+     * Takes a ready puzzle from the pool and starts generating a replacement.
+     * If no puzzle is ready, one is generated straight away.
+     *
+     * @param difficulty The difficulty.
+     * @return The puzzle.
+     * @throws IllegalStateException If there are no templates for the difficulty.
+     */
+    public CrossNumberPuzzle take(RealMain.Difficulty difficulty) {
+        CrossNumberPuzzle puzzle = puzzles.get(difficulty).poll();
+        if (puzzle == null) puzzle = generate(difficulty);
+        topUp(difficulty);
+        return puzzle;
+    }
+
+    /**
+     * @param difficulty The difficulty.
+     * @return The number of ready puzzles for the difficulty.
+     */
+    public int available(RealMain.Difficulty difficulty) {
+        return puzzles.get(difficulty).size();
+    }
+
+    /**
+     * Generates puzzles in the background until the pool for the difficulty
+     * is full again.
+     *
+     * @param difficulty The difficulty.
+     */
+    private synchronized void topUp(RealMain.Difficulty difficulty) {
+        BlockingQueue<CrossNumberPuzzle> queue = puzzles.get(difficulty);
+        AtomicInteger generating = pending.get(difficulty);
+        while (queue.size() + generating.get() < capacity) {
+            generating.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    queue.offer(generate(difficulty));
+                }
+                catch (RuntimeException e) {
+                    //noinspection CallToPrintStackTrace
+                    e.printStackTrace();
+                }
+                finally {
+                    generating.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Generates a puzzle from a random template.
+     *
+     * @param difficulty The difficulty.
+     * @return The puzzle.
+     */
+    private CrossNumberPuzzle generate(RealMain.Difficulty difficulty) {
+        return CrossNumberPuzzleGenerator.generate(difficulty, registry.getRandomTemplate(difficulty));
+    }
+
+}
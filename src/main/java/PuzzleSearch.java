@@ -0,0 +1,522 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class searches for digits that fill the slots of a template, so that
+ * every answer follows the rule given for its slot. It can fill a template at
+ * random, or count how many grids follow a set of rules, e.g. to prove that a
+ * set of clues has exactly one solution.
+ * <p>
+ * It is a small constraint solver. Every square keeps the digits it can still
+ * take as a bit mask. Rules can rule out digits up front (e.g. odd last digits
+ * for even answers). Once a slot is down to a few possible answers, they are
+ * all tried, and any digit that is not part of one of them is ruled out. The
+ * slots crossing a square whose digits were narrowed are then checked again,
+ * and so on. If a square runs out of digits, the search goes back and tries
+ * another digit.
+ * <p>
+ * The start of a number is never a zero, and every square gets exactly one
+ * digit, which all the slots through it share. When filling, squares are given
+ * digits in slot order; without rules no digit is ever ruled out, so the grid
+ * is filled with the same random numbers the generator has always used and
+ * puzzle IDs keep giving the same puzzles. When counting, the square with the
+ * fewest digits left goes first.
+ * <p>
+ * The layout is worked out once per template. A search does not change once
+ * created, so it can be used from several threads at once.
+ */
+public class PuzzleSearch {
+
+    // The most digits a search tries before giving up.
+    private static final int MAX_STEPS = 1_000_000;
+    // A slot is checked against its rule once it has at most this many possible answers left.
+    private static final int MAX_ANSWERS_TO_CHECK = 100;
+    // The longest answer that is checked as a long.
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < MAX_LONG_DIGITS; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private final PuzzleGrid grid;
+    private final int slotCount;
+    // The squares of the template's slots, in the order they are given digits.
+    private final int[] rows;
+    private final int[] cols;
+    // The digits each square can take before any rules are applied.
+    private final short[] startDomains;
+    // For each slot, its squares in order.
+    private final int[][] slotSquares;
+    // For each square, the slots going through it.
+    private final int[][] squareSlots;
+
+    /**
+     * Works out the layout of a template.
+     *
+     * @param grid The template's grid.
+     * @param slots The template's slots.
+     */
+    PuzzleSearch(PuzzleGrid grid, PuzzleSlots slots) {
+        this.grid = grid;
+        this.slotCount = slots.size();
+        int rowSize = grid.getRowSize();
+        int[] squareAt = new int[grid.getColSize() * rowSize];
+        Arrays.fill(squareAt, -1);
+
+        // Number the squares in slot order, which is the order the generator
+        // has always filled them in.
+        int squareCount = 0;
+        int[] squareSlotCounts = new int[squareAt.length];
+        slotSquares = new int[slotCount][];
+        for (int slotIndex = 0; slotIndex < slotCount; slotIndex++) {
+            PuzzleSlot slot = slots.get(slotIndex);
+            slotSquares[slotIndex] = new int[slot.getLength()];
+            for (int position = 0; position < slot.getLength(); position++) {
+                int index = slot.getRowAt(position) * rowSize + slot.getColAt(position);
+                if (squareAt[index] == -1) squareAt[index] = squareCount++;
+                slotSquares[slotIndex][position] = squareAt[index];
+                squareSlotCounts[squareAt[index]]++;
+            }
+        }
+
+        rows = new int[squareCount];
+        cols = new int[squareCount];
+        startDomains = new short[squareCount];
+        squareSlots = new int[squareCount][];
+        for (int square = 0; square < squareCount; square++) {
+            squareSlots[square] = new int[squareSlotCounts[square]];
+            startDomains[square] = AnswerConstraint.ALL_DIGITS;
+        }
+        int[] filled = new int[squareCount];
+        for (int slotIndex = 0; slotIndex < slotCount; slotIndex++) {
+            PuzzleSlot slot = slots.get(slotIndex);
+            for (int position = 0; position < slot.getLength(); position++) {
+                int square = slotSquares[slotIndex][position];
+                rows[square] = slot.getRowAt(position);
+                cols[square] = slot.getColAt(position);
+                squareSlots[square][filled[square]++] = slotIndex;
+                // The start of a number is never a zero.
+                if (position == 0) startDomains[square] &= ~1;
+            }
+        }
+    }
+
+    /**
+     * Fills the template at random, applying the same rule to every slot.
+     *
+     * @param constraint The rule every answer has to follow, or null if there is none.
+     * @param rand The source of randomness.
+     * @return The filled out grid, or null if no grid follows the rule.
+     * @throws IllegalStateException If the search gave up before finding a grid or proving there is none.
+     */
+    public PuzzleGrid fill(AnswerConstraint constraint, SplittableRandom rand) {
+        AnswerConstraint[] constraints = new AnswerConstraint[slotCount];
+        Arrays.fill(constraints, constraint);
+        return fill(constraints, rand);
+    }
+
+    /**
+     * Fills the template at random. The same constraints and an identically
+     * seeded source of randomness always give the same grid.
+     *
+     * @param constraints The rule for each slot, in slot order, or null for slots without a rule.
+     * @param rand The source of randomness.
+     * @return The filled out grid, or null if no grid follows the rules.
+     * @throws IllegalStateException If the search gave up before finding a grid or proving there is none.
+     */
+    public PuzzleGrid fill(AnswerConstraint[] constraints, SplittableRandom rand) {
+        checkConstraints(constraints);
+        Search search = new Search(constraints, rand);
+        int found = search.run(1);
+        if (found == -1) throw new IllegalStateException("The search gave up after trying " + MAX_STEPS + " digits");
+        if (found == 0) return null;
+
+        PuzzleGrid filled = grid.copy();
+        for (int square = 0; square < rows.length; square++) {
+            filled.setDigit(rows[square], cols[square], search.digits[square]);
+        }
+        return filled;
+    }
+
+    /**
+     * Counts the grids in which every answer follows the rule for its slot, up
+     * to a limit. A set of clues that hide their answers determines a single
+     * grid if this returns 1 with a limit of 2.
+     *
+     * @param constraints The rule for each slot, in slot order, or null for slots without a rule.
+     * @param limit The most grids to count.
+     * @return The number of grids, at most the limit, or -1 if the search gave up before finishing.
+     */
+    public int countSolutions(AnswerConstraint[] constraints, int limit) {
+        checkConstraints(constraints);
+        return new Search(constraints, null).run(limit);
+    }
+
+    /**
+     * @param constraints The rule for each slot, in slot order, or null for slots without a rule.
+     * @return True if exactly one grid follows the rules, false if none or several do or the search gave up.
+     */
+    public boolean hasUniqueSolution(AnswerConstraint[] constraints) {
+        return countSolutions(constraints, 2) == 1;
+    }
+
+    /**
+     * @param constraints The rule for each slot.
+     * @throws IllegalArgumentException If there is not one rule for each slot.
+     */
+    private void checkConstraints(AnswerConstraint[] constraints) {
+        if (constraints.length != slotCount) {
+            throw new IllegalArgumentException("Expected " + slotCount + " constraints, not " + constraints.length);
+        }
+    }
+
+    /**
+     * @param mask A digit mask.
+     * @param n The index of the digit to return, from 0 to the number of digits in the mask minus 1.
+     * @return The n-th lowest digit in the mask.
+     */
+    private static int nthDigit(int mask, int n) {
+        for (int i = 0; i < n; i++) mask &= mask - 1;
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /*
+        The state of a single search. Changes to the digit masks are recorded on
+        a trail, so going back is just a matter of undoing the trail.
+     */
+    private class Search {
+
+        private final AnswerConstraint[] constraints;
+        // The source of randomness when filling, or null when counting.
+        private final SplittableRandom rand;
+        private final short[] domains;
+        private final byte[] digits;
+        // For each slot, the number of its squares without a digit.
+        private final int[] unassigned;
+        private int[] trailSquares = new int[64];
+        private short[] trailDomains = new short[64];
+        private int trailSize;
+        // The slots waiting to be checked against their rules.
+        private final int[] queue;
+        private final boolean[] queued;
+        private int queueSize;
+        // Reused when checking a slot against its rule: the positions of the
+        // squares without a digit, the digits of theirs that are part of an
+        // answer following the rule, and the digits of the answer being tried.
+        private final int[] freePositions = new int[8];
+        private final short[] supported = new short[8];
+        private final int[] chosen = new int[8];
+
+        private Search(AnswerConstraint[] constraints, SplittableRandom rand) {
+            this.constraints = constraints;
+            this.rand = rand;
+            this.domains = startDomains.clone();
+            this.digits = new byte[rows.length];
+            this.unassigned = new int[slotCount];
+            this.queue = new int[slotCount];
+            this.queued = new boolean[slotCount];
+            Arrays.fill(digits, (byte) -1);
+        }
+
+        /**
+         * Applies the rules up front and searches for grids. When filling, the
+         * search stops at the first grid and leaves its digits in place.
+         *
+         * @param limit The most grids to find.
+         * @return The number of grids found, at most the limit, or -1 if the search gave up.
+         */
+        private int run(int limit) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                int[] squares = slotSquares[slot];
+                unassigned[slot] = squares.length;
+                if (constraints[slot] == null) continue;
+                for (int position = 0; position < squares.length; position++) {
+                    domains[squares[position]] &= constraints[slot].allowedDigits(position, squares.length);
+                }
+                enqueue(slot);
+            }
+            for (short domain : domains) {
+                if (domain == 0) return 0;
+            }
+            if (!propagate()) return 0;
+            return search(limit);
+        }
+
+        /**
+         * Gives every square a digit, one at a time, going back whenever a
+         * square runs out of digits.
+         *
+         * @param limit The most grids to find.
+         * @return The number of grids found, at most the limit, or -1 if the search gave up.
+         */
+        private int search(int limit) {
+            int squareCount = rows.length;
+            if (squareCount == 0) return 1;
+            // The square given a digit at each depth, the digits still to try
+            // for it, and the trail size before it was given one.
+            int[] order = new int[squareCount];
+            short[] candidates = new short[squareCount];
+            int[] marks = new int[squareCount];
+            int found = 0;
+            int steps = 0;
+
+            int depth = 0;
+            order[0] = nextSquare(0);
+            candidates[0] = domains[order[0]];
+            while (depth >= 0) {
+                int square = order[depth];
+                if (candidates[depth] == 0) {
+                    // Out of digits, so go back to the square before.
+                    depth--;
+                    if (depth >= 0) undo(order[depth], marks[depth]);
+                    continue;
+                }
+                if (++steps > MAX_STEPS) return -1;
+
+                int digit = rand != null
+                        ? nthDigit(candidates[depth], rand.nextInt(Integer.bitCount(candidates[depth])))
+                        : Integer.numberOfTrailingZeros(candidates[depth]);
+                candidates[depth] &= ~(1 << digit);
+                marks[depth] = trailSize;
+                if (!assign(square, digit)) {
+                    undo(square, marks[depth]);
+                }
+                else if (depth == squareCount - 1) {
+                    // Every square has a digit.
+                    if (++found == limit) return found;
+                    undo(square, marks[depth]);
+                }
+                else {
+                    depth++;
+                    order[depth] = nextSquare(depth);
+                    candidates[depth] = domains[order[depth]];
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Picks the next square to give a digit. When filling, this is the
+         * next square in slot order; when counting, the square with the fewest
+         * digits left.
+         *
+         * @param depth The number of squares with a digit.
+         * @return The square.
+         */
+        private int nextSquare(int depth) {
+            if (rand != null) return depth;
+            int best = -1;
+            int bestCount = Integer.MAX_VALUE;
+            for (int square = 0; square < digits.length; square++) {
+                if (digits[square] >= 0) continue;
+                int count = Integer.bitCount(domains[square]);
+                if (count < bestCount) {
+                    best = square;
+                    bestCount = count;
+                    if (count <= 1) break;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Gives a square a digit and rules out the digits that would break a
+         * rule in the slots through it.
+         *
+         * @param square The square.
+         * @param digit The digit.
+         * @return False if some square ran out of digits, true otherwise.
+         */
+        private boolean assign(int square, int digit) {
+            setDomain(square, (short) (1 << digit));
+            digits[square] = (byte) digit;
+            int[] slots = squareSlots[square];
+            for (int slot : slots) {
+                unassigned[slot]--;
+                if (constraints[slot] != null) enqueue(slot);
+            }
+            return propagate();
+        }
+
+        /**
+         * Takes a square's digit away and undoes everything since.
+         *
+         * @param square The square.
+         * @param mark The trail size before the square was given its digit.
+         */
+        private void undo(int square, int mark) {
+            while (trailSize > mark) {
+                trailSize--;
+                domains[trailSquares[trailSize]] = trailDomains[trailSize];
+            }
+            digits[square] = -1;
+            for (int slot : squareSlots[square]) unassigned[slot]++;
+        }
+
+        /**
+         * @param slot A slot to check against its rule.
+         */
+        private void enqueue(int slot) {
+            if (queued[slot]) return;
+            queued[slot] = true;
+            queue[queueSize++] = slot;
+        }
+
+        /**
+         * Checks the waiting slots against their rules until nothing changes.
+         *
+         * @return False if some square ran out of digits, true otherwise.
+         */
+        private boolean propagate() {
+            while (queueSize > 0) {
+                int slot = queue[--queueSize];
+                queued[slot] = false;
+                if (!checkSlot(slot)) {
+                    while (queueSize > 0) queued[queue[--queueSize]] = false;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks a slot against its rule if it has few enough possible answers
+         * left: every possible answer is tried, and the digits of its squares
+         * which are not part of an answer that follows the rule are ruled out.
+         * The slots crossing any square that changed are then checked again.
+         *
+         * @param slot The slot.
+         * @return False if some square ran out of digits, true otherwise.
+         */
+        private boolean checkSlot(int slot) {
+            int[] squares = slotSquares[slot];
+            if (unassigned[slot] > freePositions.length) return true;
+
+            // Find the squares without a digit and the number of possible answers.
+            int freeCount = 0;
+            int answerCount = 1;
+            for (int position = 0; position < squares.length; position++) {
+                if (digits[squares[position]] >= 0) continue;
+                freePositions[freeCount] = position;
+                supported[freeCount] = 0;
+                freeCount++;
+                answerCount *= Integer.bitCount(domains[squares[position]]);
+                if (answerCount > MAX_ANSWERS_TO_CHECK) return true;
+            }
+            if (freeCount == 0) return true;
+
+            if (squares.length <= MAX_LONG_DIGITS) checkLongAnswers(slot, freeCount);
+            else checkBigAnswers(slot, freeCount);
+
+            for (int i = 0; i < freeCount; i++) {
+                int square = squares[freePositions[i]];
+                if (supported[i] == domains[square]) continue;
+                if (supported[i] == 0) return false;
+                setDomain(square, supported[i]);
+                for (int crossing : squareSlots[square]) {
+                    if (crossing != slot && constraints[crossing] != null) enqueue(crossing);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Tries every possible answer of a slot that fits in a long, and
+         * records the digits of the answers that follow the rule.
+         *
+         * @param slot The slot.
+         * @param freeCount The number of squares in the slot without a digit.
+         */
+        private void checkLongAnswers(int slot, int freeCount) {
+            int[] squares = slotSquares[slot];
+            AnswerConstraint constraint = constraints[slot];
+
+            // Read the answer with zeros in place of the missing digits.
+            long base = 0;
+            for (int position = 0; position < squares.length; position++) {
+                base *= 10;
+                if (digits[squares[position]] >= 0) base += digits[squares[position]];
+            }
+
+            // Go through the possible answers like an odometer, each square
+            // running through its digits.
+            for (int i = 0; i < freeCount; i++) chosen[i] = Integer.numberOfTrailingZeros(domains[squares[freePositions[i]]]);
+            while (true) {
+                long answer = base;
+                for (int i = 0; i < freeCount; i++) answer += chosen[i] * POWERS_OF_TEN[squares.length - 1 - freePositions[i]];
+                if (constraint.test(answer)) {
+                    for (int i = 0; i < freeCount; i++) supported[i] |= 1 << chosen[i];
+                }
+                if (!nextAnswer(squares, freeCount)) return;
+            }
+        }
+
+        /**
+         * Tries every possible answer of a slot that is too long for a long,
+         * and records the digits of the answers that follow the rule.
+         *
+         * @param slot The slot.
+         * @param freeCount The number of squares in the slot without a digit.
+         */
+        private void checkBigAnswers(int slot, int freeCount) {
+            int[] squares = slotSquares[slot];
+            AnswerConstraint constraint = constraints[slot];
+            char[] answer = new char[squares.length];
+            for (int position = 0; position < squares.length; position++) {
+                if (digits[squares[position]] >= 0) answer[position] = (char) ('0' + digits[squares[position]]);
+            }
+
+            for (int i = 0; i < freeCount; i++) chosen[i] = Integer.numberOfTrailingZeros(domains[squares[freePositions[i]]]);
+            while (true) {
+                for (int i = 0; i < freeCount; i++) answer[freePositions[i]] = (char) ('0' + chosen[i]);
+                if (constraint.test(new BigInteger(new String(answer)))) {
+                    for (int i = 0; i < freeCount; i++) supported[i] |= 1 << chosen[i];
+                }
+                if (!nextAnswer(squares, freeCount)) return;
+            }
+        }
+
+        /**
+         * Moves on to the next possible answer of a slot.
+         *
+         * @param squares The squares of the slot.
+         * @param freeCount The number of squares without a digit.
+         * @return False if every possible answer has been tried, true otherwise.
+         */
+        private boolean nextAnswer(int[] squares, int freeCount) {
+            for (int i = freeCount - 1; i >= 0; i--) {
+                int domain = domains[squares[freePositions[i]]];
+                // The digits above the chosen one.
+                int higher = domain & -(1 << chosen[i] + 1);
+                if (higher != 0) {
+                    chosen[i] = Integer.numberOfTrailingZeros(higher);
+                    return true;
+                }
+                chosen[i] = Integer.numberOfTrailingZeros(domain);
+            }
+            return false;
+        }
+
+        /**
+         * Changes the digits a square can take, recording the old ones on the
+         * trail.
+         *
+         * @param square The square.
+         * @param domain The digits the square can take.
+         */
+        private void setDomain(int square, short domain) {
+            if (trailSize == trailSquares.length) {
+                trailSquares = Arrays.copyOf(trailSquares, trailSize * 2);
+                trailDomains = Arrays.copyOf(trailDomains, trailSize * 2);
+            }
+            trailSquares[trailSize] = square;
+            trailDomains[trailSize] = domains[square];
+            trailSize++;
+            domains[square] = domain;
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * This class represents a slot in a puzzle template: a run of squares going
+ * across or down which holds the answer to one question. It records where the
+ * slot starts, its direction, its length and its question number, as well as
+ * which slot crosses each of its squares.
+ */
+public class PuzzleSlot {
+
+    private final int index;
+    private final int number;
+    private final boolean goingAcross;
+    private final int row;
+    private final int col;
+    private final int length;
+    private final int[] crossingSlots;
+    private final int[] crossingPositions;
+
+    /**
+     * Creates a slot.
+     *
+     * @param index The index of the slot in its template's slot table.
+     * @param number The question number.
+     * @param goingAcross True if the slot is going across, false if going down.
+     * @param row The row the slot starts at.
+     * @param col The column the slot starts at.
+     * @param length The number of squares in the slot.
+     * @param crossingSlots For each square, the index of the slot crossing it, or -1 if there is none.
+     * @param crossingPositions For each square, its position in the crossing slot, or -1 if there is none.
+     */
+    PuzzleSlot(int index, int number, boolean goingAcross, int row, int col, int length, int[] crossingSlots, int[] crossingPositions) {
+        this.index = index;
+        this.number = number;
+        this.goingAcross = goingAcross;
+        this.row = row;
+        this.col = col;
+        this.length = length;
+        this.crossingSlots = crossingSlots;
+        this.crossingPositions = crossingPositions;
+    }
+
+    /**
+     * @return The index of the slot in its template's slot table.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return The question number.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return True if the slot is going across, false if going down.
+     */
+    public boolean isGoingAcross() {
+        return goingAcross;
+    }
+
+    /**
+     * @return The row the slot starts at.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return The column the slot starts at.
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * @return The number of squares in the slot, i.e. the number of digits in the answer.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param position The position of a square in the slot, starting at 0.
+     * @return The row of the square.
+     */
+    public int getRowAt(int position) {
+        return goingAcross ? row : row + position;
+    }
+
+    /**
+     * @param position The position of a square in the slot, starting at 0.
+     * @return The column of the square.
+     */
+    public int getColAt(int position) {
+        return goingAcross ? col + position : col;
+    }
+
+    /**
+     * @param position The position of a square in the slot, starting at 0.
+     * @return The index of the slot crossing the square, or -1 if there is none.
+     */
+    public int getCrossingSlot(int position) {
+        return crossingSlots[position];
+    }
+
+    /**
+     * @param position The position of a square in the slot, starting at 0.
+     * @return The position of the square in the crossing slot, or -1 if there is none.
+     */
+    public int getCrossingPosition(int position) {
+        return crossingPositions[position];
+    }
+
+    /**
+     * @return The slot in string form, e.g. "3 down at (2, 4), 3 long"
+     */
+    @Override
+    public String toString() {
+        return number + (goingAcross ? " across" : " down") + " at (" + row + ", " + col + "), " + length + " long";
+    }
+
+}
@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the slot table of a puzzle template. It is worked out once per
+ * template and lists every slot in question order, i.e. in the order the
+ * questions are numbered, with across before down for squares that start both.
+ * It also records which slots cover each square, so generation and checking can
+ * work slot by slot rather than scanning the whole grid.
+ */
+public class PuzzleSlots {
+
+    private final List<PuzzleSlot> slots;
+    private final int rowSize;
+    // For each square, the index of the slot going across/down through it, or -1.
+    private final int[] acrossSlotAt;
+    private final int[] downSlotAt;
+
+    /**
+     * Works out the slot table of a template.
+     *
+     * @param grid The template's grid.
+     */
+    PuzzleSlots(PuzzleGrid grid) {
+        int colSize = grid.getColSize();
+        rowSize = grid.getRowSize();
+        acrossSlotAt = new int[colSize * rowSize];
+        downSlotAt = new int[colSize * rowSize];
+        Arrays.fill(acrossSlotAt, -1);
+        Arrays.fill(downSlotAt, -1);
+
+        // Find the slots, numbering them the same way as the questions.
+        List<int[]> found = new ArrayList<>();   // number, across, row, col, length
+        int counter = 1;
+        for (int row = 0; row < colSize; row++) {
+            for (int col = 0; col < rowSize; col++) {
+                char templateChar = grid.getCharAt(row, col);
+
+                // If the char is 'B' or 'A', then this square is the start of a number going across.
+                if (templateChar == 'B' || templateChar == 'A') {
+                    int length = 0;
+                    while (col + length < rowSize && grid.isUsed(row, col + length)) length++;
+                    found.add(new int[] {counter, 1, row, col, length});
+                }
+
+                // If the char is 'B' or 'D', then this square is the start of a number going downwards.
+                if (templateChar == 'B' || templateChar == 'D') {
+                    int length = 0;
+                    while (row + length < colSize && grid.isUsed(row + length, col)) length++;
+                    found.add(new int[] {counter, 0, row, col, length});
+                }
+
+                // Increment the counter if a question starts here.
+                if (templateChar == 'B' || templateChar == 'A' || templateChar == 'D') counter++;
+            }
+        }
+
+        // Record which slots cover each square. If two slots going the same way
+        // overlap, the square belongs to the first one.
+        for (int i = 0; i < found.size(); i++) {
+            int[] slot = found.get(i);
+            int[] slotAt = slot[1] == 1 ? acrossSlotAt : downSlotAt;
+            for (int position = 0; position < slot[4]; position++) {
+                int square = index(slot[1] == 1 ? slot[2] : slot[2] + position, slot[1] == 1 ? slot[3] + position : slot[3]);
+                if (slotAt[square] == -1) slotAt[square] = i;
+            }
+        }
+
+        // Create the slots, now that the crossings are known.
+        List<PuzzleSlot> slotList = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            int[] slot = found.get(i);
+            boolean across = slot[1] == 1;
+            int[] crossingSlots = new int[slot[4]];
+            int[] crossingPositions = new int[slot[4]];
+            for (int position = 0; position < slot[4]; position++) {
+                int row = across ? slot[2] : slot[2] + position;
+                int col = across ? slot[3] + position : slot[3];
+                int crossing = across ? downSlotAt[index(row, col)] : acrossSlotAt[index(row, col)];
+                crossingSlots[position] = crossing;
+                crossingPositions[position] = crossing == -1 ? -1 : (across ? row - found.get(crossing)[2] : col - found.get(crossing)[3]);
+            }
+            slotList.add(new PuzzleSlot(i, slot[0], across, slot[2], slot[3], slot[4], crossingSlots, crossingPositions));
+        }
+        slots = Collections.unmodifiableList(slotList);
+    }
+
+    /**
+     * @param row The row.
+     * @param col The column.
+     * @return The index of the square in the per-square arrays.
+     */
+    private int index(int row, int col) {
+        return row * rowSize + col;
+    }
+
+    /**
+     * @return The slots in question order, in a list that cannot be modified.
+     */
+    public List<PuzzleSlot> getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return The number of slots.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * @param index The index of the slot.
+     * @return The slot.
+     */
+    public PuzzleSlot get(int index) {
+        return slots.get(index);
+    }
+
+    /**
+     * @param row The row of the square.
+     * @param col The column of the square.
+     * @return The index of the slot going across through the square, or -1 if there is none.
+     */
+    public int getAcrossSlotAt(int row, int col) {
+        return acrossSlotAt[index(row, col)];
+    }
+
+    /**
+     * @param row The row of the square.
+     * @param col The column of the square.
+     * @return The index of the slot going down through the square, or -1 if there is none.
+     */
+    public int getDownSlotAt(int row, int col) {
+        return downSlotAt[index(row, col)];
+    }
+
+}
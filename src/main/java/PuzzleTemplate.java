@@ -0,0 +1,168 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class represents a cross number puzzle template, as read from one of the
+ * files in the template folder. A template describes the shape of the puzzle:
+ * '-' marks a square which is not part of the puzzle, 'O' marks a square which
+ * is, and 'A', 'D' and 'B' mark the start of a number going across, down or
+ * both. Templates are immutable and do not depend on the user interface, so
+ * they can be shared between puzzles.
+ */
+public class PuzzleTemplate {
+
+    // Template files are named "puzzleN.txt", where N is the template number.
+    private static final Pattern NUMBERED_NAME = Pattern.compile("puzzle(\\d+)\\.txt");
+    // The characters a template may contain.
+    private static final String VALID_CHARS = "-OADB";
+
+    private final String name;
+    private final int number;
+    private final PuzzleGrid grid;
+    private final PuzzleSlots slots;
+    private final PuzzleSearch search;
+
+    /**
+     * Creates a template from a 2D char array.
+     *
+     * @param name The name of the template, e.g. the name of the file it came from.
+     * @param cells The template characters, indexed by row and then column.
+     * @throws IllegalArgumentException If a character is not a template character.
+     */
+    public PuzzleTemplate(String name, char[][] cells) {
+        this.name = name;
+        Matcher matcher = NUMBERED_NAME.matcher(name);
+        this.number = matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+        // Mark the grid as shared straight away, so it is never written to
+        // again once the template is in use.
+        this.grid = PuzzleGrid.fromTemplate(cells);
+        this.grid.markShared();
+        this.slots = new PuzzleSlots(grid);
+        this.search = new PuzzleSearch(grid, slots);
+    }
+
+    /**
+     * Reads a template from file. The file is read once and checked with
+     * {@link #parse(String, List)}.
+     *
+     * @param puzzleFile The file containing the template.
+     * @return The template.
+     * @throws IOException If the file could not be read or is not a valid template.
+     */
+    public static PuzzleTemplate load(File puzzleFile) throws IOException {
+        return parse(puzzleFile.getName(), Files.readAllLines(puzzleFile.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a template from the lines of a template file. Whitespace is
+     * ignored and blank lines are skipped. Every row must be the same width and
+     * only contain the characters '-', 'O', 'A', 'D' and 'B'.
+     *
+     * @param name The name of the template, e.g. the name of the file it came from.
+     * @param lines The lines of the template file.
+     * @return The template.
+     * @throws IOException If the lines are not a valid template.
+     */
+    public static PuzzleTemplate parse(String name, List<String> lines) throws IOException {
+        List<char[]> rows = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            // Remove the whitespace between the characters.
+            char[] row = new char[line.length()];
+            int width = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char currentChar = line.charAt(i);
+                if (Character.isWhitespace(currentChar)) continue;
+                if (VALID_CHARS.indexOf(currentChar) < 0) {
+                    throw new IOException("Template " + name + " contains the invalid character '" + currentChar + "'");
+                }
+                row[width++] = currentChar;
+            }
+
+            // Skip blank lines, e.g. at the end of the file.
+            if (width == 0) continue;
+            if (!rows.isEmpty() && width != rows.get(0).length) {
+                throw new IOException("Template " + name + " has rows of different widths");
+            }
+            rows.add(Arrays.copyOf(row, width));
+        }
+        if (rows.isEmpty()) throw new IOException("Template " + name + " is empty");
+
+        return new PuzzleTemplate(name, rows.toArray(new char[0][]));
+    }
+
+    /**
+     * @return The name of the template.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of the template, i.e. the N in "puzzleN.txt", or 0 if the template is not named that way.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return The column size i.e. the number of rows
+     */
+    public int getColSize() {return grid.getColSize();}
+
+    /**
+     * @return The row size i.e. the number of columns
+     */
+    public int getRowSize() {return grid.getRowSize();}
+
+    /**
+     * Returns the template character at the specified row and column.
+     *
+     * @param row The row the character is at.
+     * @param col The col the character is at.
+     * @return The template character at the specified row and column.
+     */
+    public char getCharAt(int row, int col) {return grid.getCharAt(row, col);}
+
+    /**
+     * @return The slot table of the template.
+     */
+    public PuzzleSlots getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return The search that fills the template with digits.
+     */
+    public PuzzleSearch getSearch() {
+        return search;
+    }
+
+    /**
+     * Checks if the square at the specified row and column is the start of a
+     * question, i.e. if it is marked 'A', 'D' or 'B'.
+     *
+     * @param row The row of the square.
+     * @param col The col of the square.
+     * @return True if a question starts at the square, false otherwise.
+     */
+    public boolean isQuestionStart(int row, int col) {
+        char templateChar = grid.getCharAt(row, col);
+        return templateChar == 'A' || templateChar == 'D' || templateChar == 'B';
+    }
+
+    /**
+     * @return A copy of the template's grid, with no digits. The copy is cheap
+     *         until it is changed.
+     */
+    public PuzzleGrid toGrid() {
+        return grid.copy();
+    }
+
+}
@@ -0,0 +1,122 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class holds every puzzle template, indexed by difficulty. The templates
+ * are read and checked once, from the "easy", "hard" etc. folders of the
+ * template folder, and are then served from memory. Templates that cannot be
+ * read or are not valid are skipped. The registry cannot be changed once
+ * loaded, so it is safe to use from several threads.
+ */
+public class PuzzleTemplateRegistry {
+
+    private final Map<RealMain.Difficulty, List<PuzzleTemplate>> templates = new EnumMap<>(RealMain.Difficulty.class);
+    private final Map<RealMain.Difficulty, Map<Integer, PuzzleTemplate>> numberedTemplates = new EnumMap<>(RealMain.Difficulty.class);
+
+    /*
+        The registry for the templates next to the application is loaded
+        lazily, the first time it is needed.
+     */
+    private static class DefaultHolder {
+        static final PuzzleTemplateRegistry REGISTRY = load(new File(RealMain.getBasePathForClass(RealMain.class) + File.separator + RealMain.PUZZLE_FOLDER));
+    }
+
+    /**
+     * Creates a registry from templates that have already been read.
+     *
+     * @param templates The templates for each difficulty.
+     */
+    public PuzzleTemplateRegistry(Map<RealMain.Difficulty, List<PuzzleTemplate>> templates) {
+        for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+            List<PuzzleTemplate> list = templates.get(difficulty);
+            list = list == null ? Collections.emptyList() : new ArrayList<>(list);
+
+            Map<Integer, PuzzleTemplate> byNumber = new HashMap<>();
+            for (PuzzleTemplate template : list) {
+                if (template.getNumber() > 0) byNumber.put(template.getNumber(), template);
+            }
+
+            this.templates.put(difficulty, Collections.unmodifiableList(list));
+            this.numberedTemplates.put(difficulty, Collections.unmodifiableMap(byNumber));
+        }
+    }
+
+    /**
+     * Reads every template in the given template folder.
+     *
+     * @param templateFolder The folder containing a folder of templates for each difficulty.
+     * @return The registry.
+     */
+    public static PuzzleTemplateRegistry load(File templateFolder) {
+        Map<RealMain.Difficulty, List<PuzzleTemplate>> templates = new EnumMap<>(RealMain.Difficulty.class);
+        for (RealMain.Difficulty difficulty : RealMain.Difficulty.values()) {
+            List<PuzzleTemplate> list = new ArrayList<>();
+            File[] files = new File(templateFolder, difficulty.name().toLowerCase()).listFiles(File::isFile);
+
+            // Not every difficulty has templates.
+            if (files != null) {
+                // Sort the files so the order does not depend on the file system.
+                Arrays.sort(files);
+                for (File file : files) {
+                    try {
+                        list.add(PuzzleTemplate.load(file));
+                    }
+                    catch (IOException e) {
+                        //noinspection CallToPrintStackTrace
+                        e.printStackTrace();
+                    }
+                }
+            }
+            templates.put(difficulty, list);
+        }
+        return new PuzzleTemplateRegistry(templates);
+    }
+
+    /**
+     * @return The registry for the templates next to the application.
+     */
+    public static PuzzleTemplateRegistry getDefault() {
+        return DefaultHolder.REGISTRY;
+    }
+
+    /**
+     * @param difficulty The difficulty.
+     * @return The templates for the difficulty, in a list that cannot be modified.
+     */
+    public List<PuzzleTemplate> getTemplates(RealMain.Difficulty difficulty) {
+        return templates.get(difficulty);
+    }
+
+    /**
+     * Returns the template with the given number.
+     *
+     * @param difficulty The difficulty.
+     * @param number The number of the template, i.e. the N in "puzzleN.txt".
+     * @return The template, or null if there is no such template.
+     */
+    public PuzzleTemplate getTemplate(RealMain.Difficulty difficulty, int number) {
+        return numberedTemplates.get(difficulty).get(number);
+    }
+
+    /**
+     * Picks one of the templates for the difficulty at random.
+     *
+     * @param difficulty The difficulty.
+     * @return A template, picked at random.
+     * @throws IllegalStateException If there are no templates for the difficulty.
+     */
+    public PuzzleTemplate getRandomTemplate(RealMain.Difficulty difficulty) {
+        List<PuzzleTemplate> list = templates.get(difficulty);
+        if (list.isEmpty()) throw new IllegalStateException("There are no templates for " + difficulty + " difficulty!");
+        return list.get(ThreadLocalRandom.current().nextInt(list.size()));
+    }
+
+}
@@ -95,6 +95,14 @@ public class RealMain extends Application {
             copyFile(getClass().getResourceAsStream("a-plus-tec.jpg"), getBasePathForClass(RealMain.class) + File.separator + "a-plus-tec.jpg");
         }
 
+        // Start generating puzzles in the background, now that the templates
+        // are in place, so games can start straight away.
+        PuzzlePool.shared().start();
+
+        // Start loading the highscores in the background, so they are ready by
+        // the time a game is won or the highscores are viewed.
+        CrossNumberPuzzleGame.getHighscores();
+
         // Create the window.
         MenuWindow menuWindow = new MenuWindow();
         Scene scene = new Scene(menuWindow, minWindowWidth, minWindowHeight);
@@ -0,0 +1,247 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class ranks the players of one game type and difficulty by their best
+ * score, for the shared leaderboard server. Unlike the leaderboard, it keeps
+ * every player rather than a fixed number of highscores, so any player can be
+ * told their rank. It can be used from many threads at once without a global
+ * lock: scores are kept in a concurrent skip list ordered from the highest to
+ * the lowest, and reads take no locks at all. Only submissions for the same
+ * player, or for players in the same bin of the concurrent map, wait for each
+ * other.
+ * <p>
+ * To find a rank without walking past every higher score, the scores are
+ * also counted in buckets at two levels: coarse buckets of 1024 points, each
+ * split into fine buckets of 16 points. A rank is the sum of the counts of the
+ * higher coarse buckets, then of the higher fine buckets in the player's coarse
+ * bucket, plus the higher scores in the player's own fine bucket.
+ */
+public class ScoreRanking {
+
+    // Fine buckets are 2^4 = 16 points wide and coarse ones 2^10 = 1024.
+    private static final int FINE_SHIFT = 4;
+    private static final int COARSE_SHIFT = 10;
+    // The buckets cover scores below 2^17 = 131072, above the best possible
+    // hard score; any higher score is counted in the last bucket.
+    private static final int SCORE_BITS = 17;
+    private static final int FINE_BUCKETS = 1 << (SCORE_BITS - FINE_SHIFT);
+    private static final int FINE_PER_COARSE = 1 << (COARSE_SHIFT - FINE_SHIFT);
+    private static final int COARSE_BUCKETS = FINE_BUCKETS / FINE_PER_COARSE;
+
+    /*
+        A player's best score. Entries with the same score are ordered by when
+        they were submitted, so earlier scores win ties.
+     */
+    private static final class Entry {
+        final Highscore highscore;
+        final int score;
+        final long sequence;
+
+        Entry(Highscore highscore, long sequence) {
+            this(highscore, highscore.getScore(), sequence);
+        }
+
+        Entry(Highscore highscore, int score, long sequence) {
+            this.highscore = highscore;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A player's rank together with the best score it is the rank of.
+     */
+    public static final class Standing {
+        private final int rank;
+        private final Highscore highscore;
+
+        private Standing(int rank, Highscore highscore) {
+            this.rank = rank;
+            this.highscore = highscore;
+        }
+
+        /**
+         * @return The player's rank, starting from 1.
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        /**
+         * @return The player's best score.
+         */
+        public Highscore getHighscore() {
+            return highscore;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int compare = Integer.compare(b.score, a.score);
+        return compare != 0 ? compare : Long.compare(a.sequence, b.sequence);
+    };
+
+    private final RealMain.GameType gameType;
+    private final RealMain.Difficulty difficulty;
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentHashMap<String, Entry> bestByPlayer = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray coarseCounts = new AtomicIntegerArray(COARSE_BUCKETS);
+    private final AtomicIntegerArray fineCounts = new AtomicIntegerArray(FINE_BUCKETS);
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * Creates an empty ranking.
+     *
+     * @param gameType The type of game.
+     * @param difficulty The difficulty.
+     */
+    public ScoreRanking(RealMain.GameType gameType, RealMain.Difficulty difficulty) {
+        this.gameType = gameType;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Submits a score. It only replaces the player's best score if it is
+     * higher.
+     *
+     * @param highscore The score, which must be for the game type and difficulty of this ranking.
+     * @return The player's rank afterwards, starting from 1.
+     */
+    public int submit(Highscore highscore) {
+        if (highscore.getGameType() != gameType || highscore.getDifficulty() != difficulty) {
+            throw new IllegalArgumentException("Not a " + gameType + " " + difficulty + " score: " + highscore);
+        }
+        if (highscore.getScore() < 0) throw new IllegalArgumentException("Not a valid score: " + highscore.getScore());
+
+        // Updates for the same player are done one at a time by the map.
+        // Readers skip any entry the map does not point to, so the replaced
+        // entry is only removed from the skip list once the map points to the
+        // new one; until then the old entry still stands for the player. A
+        // reader walking the list can still pass the new entry just before the
+        // map switches and the old one just after, and leave the player out of
+        // that one answer.
+        Entry[] replaced = new Entry[1];
+        Entry best = bestByPlayer.compute(highscore.getPlayerName(), (name, old) -> {
+            if (old != null && old.score >= highscore.getScore()) return old;
+            Entry entry = new Entry(highscore, nextSequence.getAndIncrement());
+            entries.add(entry);
+            count(entry.score, 1);
+            if (old != null) count(old.score, -1);
+            replaced[0] = old;
+            return entry;
+        });
+        if (replaced[0] != null) entries.remove(replaced[0]);
+        return rankOf(best);
+    }
+
+    /**
+     * @param playerName The name of the player.
+     * @return The player's rank, starting from 1, or -1 if they have no score.
+     */
+    public int getRank(String playerName) {
+        Entry best = bestByPlayer.get(playerName);
+        return best == null ? -1 : rankOf(best);
+    }
+
+    /**
+     * @param playerName The name of the player.
+     * @return The player's best score, or null if they have none.
+     */
+    public Highscore getBest(String playerName) {
+        Entry best = bestByPlayer.get(playerName);
+        return best == null ? null : best.highscore;
+    }
+
+    /**
+     * Looks up a player's best score once and ranks it, so the rank and score
+     * always belong together even while the player submits a new score.
+     *
+     * @param playerName The name of the player.
+     * @return The player's rank and best score, or null if they have no score.
+     */
+    public Standing getStanding(String playerName) {
+        Entry best = bestByPlayer.get(playerName);
+        return best == null ? null : new Standing(rankOf(best), best.highscore);
+    }
+
+    /**
+     * @param score A score.
+     * @return The fine bucket the score is counted in.
+     */
+    private static int fineBucketOf(int score) {
+        return Math.min(score >>> FINE_SHIFT, FINE_BUCKETS - 1);
+    }
+
+    /**
+     * Adds to the counts of the buckets a score is in.
+     *
+     * @param score The score.
+     * @param change 1 for a new score, -1 for a replaced one.
+     */
+    private void count(int score, int change) {
+        int fine = fineBucketOf(score);
+        fineCounts.addAndGet(fine, change);
+        coarseCounts.addAndGet(fine / FINE_PER_COARSE, change);
+    }
+
+    /**
+     * Works out the rank of an entry from the counts of the higher buckets and
+     * the higher entries in its own fine bucket. While other scores are being
+     * submitted the rank may be off by the number still in progress.
+     *
+     * @param entry An entry.
+     * @return The rank of the entry, starting from 1.
+     */
+    private int rankOf(Entry entry) {
+        int fine = fineBucketOf(entry.score);
+        int coarse = fine / FINE_PER_COARSE;
+        long rank = 1;
+        for (int i = coarse + 1; i < COARSE_BUCKETS; i++) rank += coarseCounts.get(i);
+        for (int i = fine + 1; i < (coarse + 1) * FINE_PER_COARSE; i++) rank += fineCounts.get(i);
+
+        // The highest possible entry in the fine bucket; the last bucket has no top.
+        int bucketTop = fine == FINE_BUCKETS - 1 ? Integer.MAX_VALUE : ((fine + 1) << FINE_SHIFT) - 1;
+        Entry first = new Entry(null, bucketTop, Long.MIN_VALUE);
+        for (Entry higher : entries.subSet(first, true, entry, false)) {
+            if (isCurrent(higher)) rank++;
+        }
+        return (int) Math.min(rank, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param entry An entry.
+     * @return True if the entry is its player's best score, false if it is being added or replaced.
+     */
+    private boolean isCurrent(Entry entry) {
+        return bestByPlayer.get(entry.highscore.getPlayerName()) == entry;
+    }
+
+    /**
+     * Lists the best scores. A player whose best score is replaced while the
+     * list is being made may be left out of it.
+     *
+     * @param count The maximum number of scores.
+     * @return The best scores, from the highest to the lowest, one per player.
+     */
+    public List<Highscore> getTop(int count) {
+        List<Highscore> top = new ArrayList<>(Math.min(count, 64));
+        for (Entry entry : entries) {
+            if (top.size() >= count) break;
+            if (isCurrent(entry)) top.add(entry.highscore);
+        }
+        return top;
+    }
+
+    /**
+     * @return The number of players with a score.
+     */
+    public int size() {
+        return bestByPlayer.size();
+    }
+
+}
@@ -0,0 +1,211 @@
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.NumberBinding;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.*;
+import javafx.scene.text.Font;
+
+/**
+ * This board is a grid of squares, each square that is part of the puzzle
+ * holding its own text field. It suits small grids; every square costs a few
+ * nodes and bindings. The text in every square scales with the square size
+ * through two shared fonts, so resizing the window changes two properties
+ * rather than restyling every square.
+ */
+public class TextFieldPuzzleBoard extends GridPane implements PuzzleBoard {
+
+    private final boolean TESTING = false;
+    private final TextField[][] textFields;
+    private SquareListener onSquareFocused;
+    // The fonts for digits and question numbers, shared by every square.
+    private final ObjectProperty<Font> digitFont = new SimpleObjectProperty<>(this, "digitFont");
+    private final ObjectProperty<Font> numberFont = new SimpleObjectProperty<>(this, "numberFont");
+    private final NumberBinding squareSizeBinding;  // kept here, as bindings only hold weak references to each other
+
+    /**
+     * Creates the board and all its components.
+     *
+     * @param game The game.
+     */
+    public TextFieldPuzzleBoard(CrossNumberPuzzleGame game) {
+        // Set the properties of the grid.
+        this.setMinWidth(RealMain.minWindowWidth / 2 - 20);
+        this.setMinHeight(RealMain.minWindowHeight - 20);
+        this.setPadding(new Insets(5));
+        this.setAlignment(Pos.CENTER);
+
+        // Get the column and row sizes.
+        int rowSize = game.getRowSize();
+        int colSize = game.getColSize();
+
+        // Find the minimum dimension the square can be. This is for the minimum
+        // window size and does not change.
+        final double minDimension = Math.min((this.getMinWidth() / rowSize), (this.getMinHeight() / colSize));
+
+        // Find the variable dimension of the square. This dimension is used
+        // when the window is resized.
+        NumberBinding varDimensionBinding = Bindings.min(this.widthProperty().divide(rowSize), this.heightProperty().divide(colSize));
+
+        // Set the row constraints.
+        RowConstraints rc = new RowConstraints(minDimension, minDimension, Double.MAX_VALUE);
+        rc.maxHeightProperty().bind(varDimensionBinding);   // bind the maximum height property to the variable dimension binding
+        rc.setVgrow(Priority.ALWAYS);   // ensure the row takes up any extra space
+        // Add the row constraint to all the rows.
+        for (int row = 0; row < colSize; row++) {
+            this.getRowConstraints().add(rc);
+        }
+
+        // Set the column constraints.
+        ColumnConstraints cc = new ColumnConstraints(minDimension, minDimension, Double.MAX_VALUE);
+        cc.maxWidthProperty().bind(varDimensionBinding);    // bind the maximum width property to the variable dimension binding.
+        cc.setHgrow(Priority.ALWAYS);   // ensure the column takes up any extra space.
+        // Add the column constraint to all the columns.
+        for (int col = 0; col < rowSize; col++) {
+            this.getColumnConstraints().add(cc);
+        }
+
+        // Scale the text size with the square size. The squares never get
+        // smaller than the minimum dimension.
+        squareSizeBinding = Bindings.max(minDimension, varDimensionBinding);
+        squareSizeBinding.addListener((observable, oldValue, newValue) -> updateFonts(newValue.doubleValue()));
+        updateFonts(squareSizeBinding.doubleValue());
+
+        // Create puzzle grid contents.
+        textFields = new TextField[colSize][rowSize];   // array for the text fields.
+        int counter = 1;    // counter for question number
+
+        // Iterate through the puzzle grid.
+        for (int row = 0; row < colSize; row++) {
+            for (int col = 0; col < rowSize; col++) {
+                // Create the square.
+                StackPane square = new StackPane();
+                square.setPadding(new Insets(3));
+                this.add(square, col, row);
+
+                // Squares which are not part of the puzzle.
+                if (game.getCharAt(row, col) == '-') {
+                    square.getStyleClass().add("puzzle-square-unused");
+                }
+                // Squares which are part of the puzzle.
+                else {
+                    square.getStyleClass().add("puzzle-square-used");
+                    // Create the text field.
+                    TextField textField = new TextField();
+                    textField.getStyleClass().add("puzzle-square-text-field");
+                    textField.setAlignment(Pos.CENTER);
+                    textFields[row][col] = textField;
+                    StackPane.setAlignment(textField, Pos.CENTER);
+                    square.getChildren().add(textField);
+
+                    // Bind the dimensions of the text field to half o the dimensions of the square.
+                    textField.maxHeightProperty().bind(varDimensionBinding.divide(2.0));
+                    textField.maxWidthProperty().bind(varDimensionBinding.divide(2.0));
+
+                    // Scale the text size with the square size.
+                    textField.fontProperty().bind(digitFont);
+
+                    // Tell the listener when the user moves to the text field.
+                    final int squareRow = row;
+                    final int squareCol = col;
+                    textField.focusedProperty().addListener((observable, oldValue, newValue) -> {
+                        if (newValue && onSquareFocused != null) onSquareFocused.squareFocused(squareRow, squareCol);
+                    });
+
+                    // Set constraints on the contents of the text field.
+                    textField.textProperty().addListener((observable, oldValue, newValue) -> {
+                        // Reset the text field back to neutral as the value may have changed.
+                        AnswerState.NEUTRAL.applyTo(textField);
+
+                        // Ensure the text field can only contain one character.
+                        if (newValue.length() > 1) {
+                            textField.setText(oldValue);
+                        }
+
+                        // Ensure the text field can only contain numbers.
+                        if (!newValue.matches("[0-9]+")) {
+                            if (!newValue.isEmpty()) {
+                                textField.setText(oldValue);
+                            }
+                        }
+
+                        // Tell the game about the new digit. Values which were
+                        // undone above are followed by a change back to the old one.
+                        if (newValue.isEmpty()) {
+                            game.getAnswers().setDigit(squareRow, squareCol, -1);
+                        }
+                        else if (newValue.matches("[0-9]")) {
+                            game.getAnswers().setDigit(squareRow, squareCol, newValue.charAt(0) - '0');
+                        }
+                    });
+                }
+
+                // Squares which are the start of questions.
+                if (game.getCharAt(row, col) == 'B' || game.getCharAt(row, col) == 'A' || game.getCharAt(row, col) == 'D') {
+                    Label numLbl = new Label("" + counter);
+                    numLbl.getStyleClass().add("puzzle-square-number-label");
+                    StackPane.setAlignment(numLbl, Pos.TOP_LEFT);
+                    square.getChildren().add(numLbl);
+                    counter++;
+
+                    // Scale the text size with the square size.
+                    numLbl.fontProperty().bind(numberFont);
+                }
+            }
+        }
+
+        // Testing info
+        if (TESTING) {
+            this.setStyle("-fx-border-color: pink;");
+
+            ChangeListener<Number> stageSizeListener = (observable, oldValue, newValue) -> {
+                System.out.println("Height: " + this.getHeight() + " Width: " + this.getWidth());
+                System.out.println("Min height dimension: " + (this.getHeight() / colSize));
+                System.out.println("Min width dimension: " + (this.getWidth() / rowSize));
+                System.out.println("Min dimension: " + minDimension);
+                System.out.println("Var dimension: " + varDimensionBinding.doubleValue());
+                System.out.println("\n");
+            };
+            this.widthProperty().addListener(stageSizeListener);
+            this.heightProperty().addListener(stageSizeListener);
+        }
+    }
+
+    /**
+     * Updates the shared fonts for a square size. A font is only replaced if
+     * its size, rounded down to a whole number, has changed.
+     *
+     * @param squareSize The size of a square.
+     */
+    private void updateFonts(double squareSize) {
+        int digitSize = (int) squareSize / 4;
+        int numberSize = (int) squareSize / 6;
+        if (digitFont.get() == null || digitFont.get().getSize() != digitSize) digitFont.set(Font.font(FONT_FAMILY, digitSize));
+        if (numberFont.get() == null || numberFont.get().getSize() != numberSize) numberFont.set(Font.font(FONT_FAMILY, numberSize));
+    }
+
+    @Override
+    public Region getNode() {
+        return this;
+    }
+
+    @Override
+    public String getText(int row, int col) {
+        return textFields[row][col].getText();
+    }
+
+    @Override
+    public void setState(int row, int col, AnswerState state) {
+        state.applyTo(textFields[row][col]);
+    }
+
+    @Override
+    public void setOnSquareFocused(SquareListener listener) {
+        onSquareFocused = listener;
+    }
+
+}